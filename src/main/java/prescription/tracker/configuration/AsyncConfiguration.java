@@ -0,0 +1,25 @@
+package prescription.tracker.configuration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfiguration {
+
+	/**
+	 * Spring Boot only creates its application task executor when no other executor is defined,
+	 * and the mail worker pool counts as one. Declaring it here keeps asynchronous MVC responses
+	 * (e.g. streamed listings) on the bounded, {@code spring.task.execution.*}-configured pool
+	 * instead of a thread-per-request fallback. Replaced by virtual threads in the virtual thread mode.
+	 */
+	@Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+	@ConditionalOnProperty(name = VirtualThreadConfiguration.ENABLED, havingValue = "false", matchIfMissing = true)
+	ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder) {
+		return builder.build();
+	}
+
+}
@@ -0,0 +1,41 @@
+package prescription.tracker.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+	/** Medication views by medication ID. */
+	public static final String MEDICATIONS = "medications";
+
+	/** Lists of medication views by user ID. */
+	public static final String USER_MEDICATIONS = "userMedications";
+
+	/** User views by user ID. */
+	public static final String USERS = "users";
+
+	/**
+	 * Bounded Caffeine caches for the lookups. The caches are declared up front so their
+	 * statistics are bound to the metrics registry at startup. Puts and evictions made inside a
+	 * transaction are applied when it commits, so a rolled back write never evicts. The cached
+	 * reads are not transactional and put their value at once: a read that started before a write
+	 * committed can put the old value back after the write evicted it. Such a stale entry lasts
+	 * until the next write evicts it or {@code expireAfterWrite} drops it.
+	 */
+	@Bean
+	CacheManager cacheManager(@Value("${medtrack.cache.spec:maximumSize=10000,expireAfterWrite=5m,recordStats}") String spec) {
+
+		CaffeineCacheManager cacheManager = new CaffeineCacheManager(MEDICATIONS, USER_MEDICATIONS, USERS);
+		cacheManager.setCacheSpecification(spec);
+		cacheManager.setAllowNullValues(false);
+		return new TransactionAwareCacheManagerProxy(cacheManager);
+	}
+
+}
@@ -0,0 +1,109 @@
+package prescription.tracker.configuration;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Verifies at startup that the indexes the hot queries rely on exist, so a missing or
+ * renamed migration fails the deployment instead of turning lookups into table scans.
+ *
+ * @author josemarin
+ */
+@Component
+public class DatabaseIndexCheck {
+
+	/**
+	 * Indexes that must exist, by table.
+	 */
+	private static final Map<String, List<String>> EXPECTED_INDEXES = Map.of(
+			"users", List.of("idx_users_email_lower", "idx_users_confirmation_token",
+					"idx_users_confirmation_token_expiration"),
+			"medication", List.of("idx_medication_reminder_date", "idx_medication_user_name",
+					"idx_medication_user_reminder_date"),
+			"medication_event", List.of("idx_medication_event_med"),
+			"outbound_email", List.of("idx_outbound_email_status_next_attempt"));
+
+	private DataSource dataSource;
+
+	public DatabaseIndexCheck(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	/**
+	 * Checks the database once the application is up.
+	 *
+	 * @throws IllegalStateException if an expected index is missing.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void verify() {
+
+		List<String> missing = missingIndexes();
+
+		if(!missing.isEmpty()) {
+			throw new IllegalStateException("Missing database indexes: " + String.join(", ", missing));
+		}
+	}
+
+	/**
+	 * Lists the expected indexes the database does not have.
+	 *
+	 * @return The missing indexes as table.index, empty if all exist.
+	 */
+	public List<String> missingIndexes() {
+
+		List<String> missing = new ArrayList<>();
+
+		try(Connection connection = dataSource.getConnection()) {
+			DatabaseMetaData metaData = connection.getMetaData();
+
+			for(Map.Entry<String, List<String>> table : EXPECTED_INDEXES.entrySet()) {
+				Set<String> existing = indexNames(metaData, table.getKey());
+
+				for(String index : table.getValue()) {
+					if(!existing.contains(index)) {
+						missing.add(table.getKey() + "." + index);
+					}
+				}
+			}
+		}
+		catch(SQLException ex) {
+			throw new IllegalStateException("Could not read the database indexes", ex);
+		}
+
+		return missing;
+	}
+
+	private static Set<String> indexNames(DatabaseMetaData metaData, String table) throws SQLException {
+
+		// Unquoted names are stored upper-case by some databases (H2) and lower-case by others.
+		String storedName = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+		Set<String> names = new HashSet<>();
+
+		try(ResultSet indexes = metaData.getIndexInfo(null, null, storedName, false, true)) {
+			while(indexes.next()) {
+				String name = indexes.getString("INDEX_NAME");
+
+				if(name != null) {
+					names.add(name.toLowerCase(Locale.ROOT));
+				}
+			}
+		}
+
+		return names;
+	}
+
+}
@@ -0,0 +1,35 @@
+package prescription.tracker.configuration;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class EmailConfiguration {
+
+	/**
+	 * Small, bounded worker pool draining the outbound mail queue. When every worker is busy and
+	 * the hand-off queue is full the dispatching thread sends the chunk itself, which stops it from
+	 * claiming more work (backpressure) instead of piling up claimed emails in memory.
+	 * Replaced by virtual threads in the virtual thread mode.
+	 */
+	@Bean
+	@ConditionalOnProperty(name = VirtualThreadConfiguration.ENABLED, havingValue = "false", matchIfMissing = true)
+	ThreadPoolTaskExecutor mailExecutor(@Value("${medtrack.mail.workers:2}") int workers,
+			@Value("${medtrack.mail.worker-queue-capacity:4}") int queueCapacity) {
+
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(workers);
+		executor.setMaxPoolSize(workers);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix("mail-");
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.setWaitForTasksToCompleteOnShutdown(true);
+		return executor;
+	}
+
+}
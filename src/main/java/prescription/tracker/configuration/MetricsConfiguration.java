@@ -0,0 +1,34 @@
+package prescription.tracker.configuration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Names of the application's meters, and the aspect that times every public method of the
+ * classes annotated with {@link Timed}. Service timers are tagged with the class, the method and
+ * the exception thrown (or none), so failures are counted per method; repository calls are timed
+ * by Spring Boot as {@code spring.data.repository.invocations}.
+ *
+ * @author josemarin
+ */
+@Configuration
+public class MetricsConfiguration {
+
+	public static final String SERVICE_TIMER = "medtrack.service";
+
+	public static final String MAIL_SEND_TIMER = "medtrack.mail.send";
+
+	public static final String MAIL_MESSAGES_COUNTER = "medtrack.mail.messages";
+
+	public static final String PASSWORD_HASH_TIMER = "medtrack.password.hash";
+
+	@Bean
+	TimedAspect timedAspect(MeterRegistry meterRegistry) {
+		return new TimedAspect(meterRegistry);
+	}
+
+}
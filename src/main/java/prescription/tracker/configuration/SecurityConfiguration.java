@@ -1,16 +1,93 @@
 package prescription.tracker.configuration;
 
+import java.time.Duration;
+import java.util.function.IntToLongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
 public class SecurityConfiguration {
 
-    @Bean
-    PasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
+	private static final Logger log = LoggerFactory.getLogger(SecurityConfiguration.class);
+
+	/**
+	 * Calibration never goes below the BCrypt default, however slow the host is.
+	 */
+	public static final int MIN_CALIBRATED_STRENGTH = 10;
+
+	/**
+	 * Calibration stops here, so a very fast host cannot make startup take minutes.
+	 */
+	public static final int MAX_CALIBRATED_STRENGTH = 16;
+
+	/**
+	 * BCrypt encoder whose cost factor is either configured ({@code medtrack.security.bcrypt.strength})
+	 * or, when left unset, calibrated at startup to the highest cost that hashes within
+	 * {@code medtrack.security.bcrypt.target-time} on this host.
+	 */
+	@Bean
+	PasswordEncoder passwordEncoder(@Value("${medtrack.security.bcrypt.strength:0}") int strength,
+			@Value("${medtrack.security.bcrypt.target-time:250ms}") Duration targetTime) {
+
+		if(strength == 0) {
+			strength = calibrateStrength(targetTime, SecurityConfiguration::hashNanos);
+			log.info("BCrypt strength calibrated to {} for a target hash time of {}", strength, targetTime);
+		}
+
+		return new BCryptPasswordEncoder(strength);
+	}
+
+	/**
+	 * Bounded pool that runs every password hash, so request threads wait on a future instead of
+	 * burning CPU. When all workers are busy and the queue is full, new hashes are rejected
+	 * and the request fails fast with 503 instead of queuing without bound.
+	 */
+	@Bean
+	ThreadPoolTaskExecutor passwordHashingExecutor(
+			@Value("${medtrack.security.hashing.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int threads,
+			@Value("${medtrack.security.hashing.queue-capacity:100}") int queueCapacity) {
+
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(threads);
+		executor.setMaxPoolSize(threads);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix("bcrypt-");
+		return executor;
+	}
+
+	/**
+	 * Picks the highest BCrypt strength that hashes within the target time. Every step doubles
+	 * the cost, so a strength is accepted when the previous one took at most half the target;
+	 * strengths beyond the target are never measured.
+	 *
+	 * @param targetTime      The longest a single hash should take.
+	 * @param nanosAtStrength Measures one hash at the given strength, in nanoseconds.
+	 * @return The strength, between {@link #MIN_CALIBRATED_STRENGTH} and {@link #MAX_CALIBRATED_STRENGTH}.
+	 */
+	public static int calibrateStrength(Duration targetTime, IntToLongFunction nanosAtStrength) {
+
+		int strength = MIN_CALIBRATED_STRENGTH;
+
+		while(strength < MAX_CALIBRATED_STRENGTH && nanosAtStrength.applyAsLong(strength) * 2 <= targetTime.toNanos()) {
+			strength++;
+		}
+
+		return strength;
+	}
+
+	private static long hashNanos(int strength) {
+
+		BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+		long start = System.nanoTime();
+		encoder.encode("calibration password");
+		return System.nanoTime() - start;
 	}
 
 }
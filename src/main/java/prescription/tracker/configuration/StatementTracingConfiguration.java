@@ -0,0 +1,72 @@
+package prescription.tracker.configuration;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import prescription.tracker.util.StatementTracker;
+
+/**
+ * Routes the application's connections through a datasource proxy that reports every statement
+ * execution to the {@link StatementTracker} of the calling thread, so each HTTP request can be
+ * charged with the statements it caused (see {@link StatementTracingFilter}).
+ *
+ * @author josemarin
+ */
+@Configuration
+public class StatementTracingConfiguration {
+
+	private static final String START_NANOS = "startNanos";
+
+	/**
+	 * Wraps the data source once it is fully configured.
+	 */
+	@Bean
+	static BeanPostProcessor statementTracingDataSourcePostProcessor() {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+
+				if(bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+					return ProxyDataSourceBuilder.create(dataSource)
+							.name(beanName)
+							.listener(new TrackingListener())
+							.build();
+				}
+
+				return bean;
+			}
+		};
+	}
+
+	/**
+	 * Times each execution with the nanosecond clock; the proxy's own elapsed time only has
+	 * millisecond resolution, which would round most lookups to zero.
+	 */
+	private static class TrackingListener implements QueryExecutionListener {
+
+		@Override
+		public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+			execInfo.addCustomValue(START_NANOS, System.nanoTime());
+		}
+
+		@Override
+		public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+
+			Long start = execInfo.getCustomValue(START_NANOS, Long.class);
+
+			StatementTracker.record(start == null ? 0 : System.nanoTime() - start);
+		}
+	}
+
+}
@@ -0,0 +1,157 @@
+package prescription.tracker.configuration;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import prescription.tracker.util.StatementTracker;
+
+/**
+ * Counts the SQL statements and database time of each HTTP request, reports them in the
+ * {@value #STATEMENTS_HEADER} and {@value #DB_TIME_HEADER} response headers, and logs a warning
+ * when a request goes over the statement or database time budget.
+ *
+ * <p>Headers have to be written before the body, so they cover the statements run until the
+ * response body starts; the budget check runs at the end and covers all of them. Requests that
+ * go asynchronous (deferred results, streamed listings) do their database work on other threads,
+ * so they get neither headers nor a budget check rather than counts that would read as zero.
+ *
+ * @author josemarin
+ */
+@Component
+public class StatementTracingFilter extends OncePerRequestFilter {
+
+	public static final String STATEMENTS_HEADER = "X-DB-Statements";
+
+	public static final String DB_TIME_HEADER = "X-DB-Time";
+
+	private static final Logger log = LoggerFactory.getLogger(StatementTracingFilter.class);
+
+	private int maxStatements;
+	private Duration maxTime;
+
+	public StatementTracingFilter(@Value("${medtrack.sql.trace.max-statements:10}") int maxStatements,
+			@Value("${medtrack.sql.trace.max-time:200ms}") Duration maxTime) {
+		this.maxStatements = maxStatements;
+		this.maxTime = maxTime;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+
+		StatementTracker tracker = StatementTracker.start();
+		TracingResponse tracingResponse = new TracingResponse(response, tracker);
+
+		try {
+			chain.doFilter(request, tracingResponse);
+
+			if(request.isAsyncStarted()) {
+				// The response is written later by the async dispatch, through this same wrapper.
+				tracingResponse.skipHeaders();
+			}
+			else {
+				// Responses without a body have not written the headers yet.
+				tracingResponse.writeHeaders();
+			}
+		}
+		finally {
+			StatementTracker.stop();
+
+			if(!request.isAsyncStarted()) {
+				checkBudget(request, tracker);
+			}
+		}
+	}
+
+	private void checkBudget(HttpServletRequest request, StatementTracker tracker) {
+
+		if(tracker.getStatements() > maxStatements || tracker.getElapsedNanos() > maxTime.toNanos()) {
+			log.warn("{} {} ran {} SQL statements in {} ms (budget {} statements, {} ms)",
+					request.getMethod(), request.getRequestURI(), tracker.getStatements(),
+					millis(tracker.getElapsedNanos()), maxStatements, maxTime.toMillis());
+		}
+	}
+
+	private static String millis(long nanos) {
+		return String.format(Locale.ROOT, "%.3f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+	}
+
+	/**
+	 * Adds the headers as soon as the body or an error is about to be written.
+	 */
+	private static class TracingResponse extends HttpServletResponseWrapper {
+
+		private StatementTracker tracker;
+		private boolean headersWritten;
+
+		TracingResponse(HttpServletResponse response, StatementTracker tracker) {
+			super(response);
+			this.tracker = tracker;
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			writeHeaders();
+			return super.getOutputStream();
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			writeHeaders();
+			return super.getWriter();
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			writeHeaders();
+			super.flushBuffer();
+		}
+
+		@Override
+		public void sendError(int sc, String msg) throws IOException {
+			writeHeaders();
+			super.sendError(sc, msg);
+		}
+
+		@Override
+		public void sendError(int sc) throws IOException {
+			writeHeaders();
+			super.sendError(sc);
+		}
+
+		@Override
+		public void sendRedirect(String location) throws IOException {
+			writeHeaders();
+			super.sendRedirect(location);
+		}
+
+		private void skipHeaders() {
+			headersWritten = true;
+		}
+
+		private void writeHeaders() {
+
+			if(!headersWritten && !isCommitted()) {
+				headersWritten = true;
+				setHeader(STATEMENTS_HEADER, String.valueOf(tracker.getStatements()));
+				setHeader(DB_TIME_HEADER, millis(tracker.getElapsedNanos()));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+package prescription.tracker.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskSchedulerBuilder;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import prescription.tracker.util.VirtualThreads;
+
+/**
+ * Opt-in mode ({@code medtrack.threads.virtual=true}, or the {@code virtual} profile) running the
+ * blocking work on virtual threads: Tomcat request handling, asynchronous MVC completions,
+ * {@code @Scheduled} jobs and the mail workers. Requires Java 21.
+ *
+ * <p>Password hashing stays on its platform thread pool: it is CPU bound, and the pool size is
+ * what keeps it from starving the rest of the application. With request threads no longer
+ * limiting concurrency, the connection pool does, so it is sized in the {@code virtual} profile.
+ *
+ * @author josemarin
+ */
+@Configuration
+@ConditionalOnProperty(name = VirtualThreadConfiguration.ENABLED, havingValue = "true")
+public class VirtualThreadConfiguration {
+
+	public static final String ENABLED = "medtrack.threads.virtual";
+
+	/**
+	 * Runs every request on its own virtual thread instead of the Tomcat worker pool.
+	 */
+	@Bean
+	TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(VirtualThreads.threadFactory("http-"));
+		return protocolHandler -> protocolHandler.setExecutor(executor);
+	}
+
+	/**
+	 * Completes asynchronous MVC responses and the work chained after password hashes.
+	 */
+	@Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+	SimpleAsyncTaskExecutor applicationTaskExecutor() {
+		return new SimpleAsyncTaskExecutor(VirtualThreads.threadFactory("task-"));
+	}
+
+	/**
+	 * Runs the scheduled jobs; they keep their own threads so a long run does not delay the others.
+	 */
+	@Bean
+	ThreadPoolTaskScheduler taskScheduler(TaskSchedulerBuilder builder) {
+		ThreadPoolTaskScheduler scheduler = builder.build();
+		scheduler.setThreadFactory(VirtualThreads.threadFactory("scheduling-"));
+		return scheduler;
+	}
+
+	/**
+	 * Mail workers. JavaMail holds a monitor while it talks to the SMTP server, which pins the
+	 * carrier thread, so the number of concurrent sends stays bounded by the worker count; a
+	 * dispatch beyond it waits for a free worker, which keeps the backpressure of the pooled mode.
+	 */
+	@Bean
+	SimpleAsyncTaskExecutor mailExecutor(@Value("${medtrack.mail.workers:2}") int workers) {
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(VirtualThreads.threadFactory("mail-"));
+		executor.setConcurrencyLimit(workers);
+		return executor;
+	}
+
+}
@@ -0,0 +1,112 @@
+package prescription.tracker.email;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.internet.MimeMessage;
+import prescription.tracker.configuration.MetricsConfiguration;
+
+/**
+ * Sends a batch of messages with a single {@link JavaMailSender#send(MimeMessage...)} call, so
+ * the whole batch shares one SMTP connection and TLS handshake, and reports which messages failed.
+ * 
+ * @author josemarin
+ */
+@Component
+public class EmailBatchSender {
+	
+	private JavaMailSender javaMailSender;
+	private Timer successfulSends;
+	private Timer failedSends;
+	private Counter sentMessages;
+	private Counter failedMessages;
+	
+	public EmailBatchSender(JavaMailSender javaMailSender, MeterRegistry meterRegistry) {
+		this.javaMailSender = javaMailSender;
+		
+		// One SMTP session per batch, so the latency is recorded per batch and the messages are counted apart.
+		this.successfulSends = sendTimer("success", meterRegistry);
+		this.failedSends = sendTimer("failure", meterRegistry);
+		this.sentMessages = messageCounter("sent", meterRegistry);
+		this.failedMessages = messageCounter("failed", meterRegistry);
+	}
+	
+	/**
+	 * Creates an empty message bound to the mail session.
+	 * 
+	 * @return A new MimeMessage.
+	 */
+	public MimeMessage createMessage() {
+		return javaMailSender.createMimeMessage();
+	}
+	
+	/**
+	 * Sends the given messages over one transport session.
+	 * 
+	 * @param messages The messages to send.
+	 * @return The messages that could not be sent, mapped to the cause of the failure.
+	 *         An empty map means every message was accepted by the server.
+	 */
+	public Map<MimeMessage, Exception> send(Collection<MimeMessage> messages) {
+		
+		Map<MimeMessage, Exception> failures = new IdentityHashMap<>();
+		
+		if(messages.isEmpty()) {
+			return failures;
+		}
+		
+		Timer.Sample sample = Timer.start();
+		
+		try {
+			javaMailSender.send(messages.toArray(new MimeMessage[0]));
+		}
+		catch(MailSendException ex) {
+			
+			for(Map.Entry<Object, Exception> failed : ex.getFailedMessages().entrySet()) {
+				failures.put((MimeMessage) failed.getKey(), failed.getValue());
+			}
+			
+			// Failures that are not tied to a message (e.g. connection refused) fail the whole batch.
+			if(failures.isEmpty()) {
+				messages.forEach(message -> failures.put(message, ex));
+			}
+		}
+		catch(MailException ex) {
+			messages.forEach(message -> failures.put(message, ex));
+		}
+		
+		sample.stop(failures.isEmpty() ? successfulSends : failedSends);
+		sentMessages.increment(messages.size() - failures.size());
+		failedMessages.increment(failures.size());
+		
+		return failures;
+	}
+	
+	private static Timer sendTimer(String outcome, MeterRegistry meterRegistry) {
+		return Timer.builder(MetricsConfiguration.MAIL_SEND_TIMER)
+				.description("SMTP send latency of one batch of emails")
+				.tag("outcome", outcome)
+				.publishPercentileHistogram()
+				.minimumExpectedValue(Duration.ofMillis(10))
+				.maximumExpectedValue(Duration.ofMinutes(1))
+				.register(meterRegistry);
+	}
+	
+	private static Counter messageCounter(String outcome, MeterRegistry meterRegistry) {
+		return Counter.builder(MetricsConfiguration.MAIL_MESSAGES_COUNTER)
+				.description("Emails handed to the SMTP server")
+				.tag("outcome", outcome)
+				.register(meterRegistry);
+	}
+
+}
@@ -0,0 +1,22 @@
+package prescription.tracker.email;
+
+/**
+ * Outcome of sending one message of a batch.
+ * 
+ * @param recipient The recipient's email address.
+ * @param sent      Whether the message was accepted by the SMTP server.
+ * @param error     The reason of the failure, or null if the message was sent.
+ * 
+ * @author josemarin
+ */
+public record EmailDeliveryResult(String recipient, boolean sent, String error) {
+	
+	public static EmailDeliveryResult sent(String recipient) {
+		return new EmailDeliveryResult(recipient, true, null);
+	}
+	
+	public static EmailDeliveryResult failed(String recipient, String error) {
+		return new EmailDeliveryResult(recipient, false, error);
+	}
+
+}
@@ -0,0 +1,131 @@
+package prescription.tracker.email;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Drains the outbound mail queue.
+ *
+ * <p>Due emails are claimed in chunks and handed to the bounded mail worker pool. Each chunk is
+ * sent through the {@link EmailBatchSender}, so the SMTP connection and its TLS handshake are
+ * shared by every message of the chunk.
+ *
+ * @author josemarin
+ */
+@Component
+public class EmailDispatcher {
+
+	private static final Logger log = LoggerFactory.getLogger(EmailDispatcher.class);
+
+	private EmailOutbox emailOutbox;
+	private EmailBatchSender emailBatchSender;
+	private TaskExecutor mailExecutor;
+	private int chunkSize;
+
+	public EmailDispatcher(EmailOutbox emailOutbox, EmailBatchSender emailBatchSender,
+			@Qualifier("mailExecutor") TaskExecutor mailExecutor,
+			@Value("${medtrack.mail.chunk-size:50}") int chunkSize) {
+		this.emailOutbox = emailOutbox;
+		this.emailBatchSender = emailBatchSender;
+		this.mailExecutor = mailExecutor;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Puts back emails whose claim outlived the lease because the worker or instance sending
+	 * them stopped. Runs at startup and periodically while the application runs, so a crashed
+	 * instance does not hold its emails until some instance restarts.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(fixedDelayString = "${medtrack.mail.requeue-interval:60000}",
+			initialDelayString = "${medtrack.mail.requeue-interval:60000}")
+	public void requeueInterrupted() {
+		int requeued = emailOutbox.requeueInterrupted();
+
+		if(requeued > 0) {
+			log.info("Requeued {} emails whose claim expired", requeued);
+		}
+	}
+
+	/**
+	 * Claims due emails chunk by chunk and submits them to the mail workers until no
+	 * more emails are due.
+	 */
+	@Scheduled(fixedDelayString = "${medtrack.mail.dispatch-interval:1000}")
+	public void dispatch() {
+
+		List<OutboundEmail> chunk;
+
+		do {
+			chunk = emailOutbox.claimDue(chunkSize);
+
+			if(!chunk.isEmpty()) {
+				List<OutboundEmail> claimed = chunk;
+				mailExecutor.execute(() -> deliver(claimed));
+			}
+
+		} while(chunk.size() == chunkSize);
+	}
+
+	/**
+	 * Sends a chunk of claimed emails over one SMTP session and records the outcome of each one.
+	 *
+	 * @param emails The claimed emails to send.
+	 */
+	public void deliver(List<OutboundEmail> emails) {
+
+		Map<MimeMessage, OutboundEmail> messages = new IdentityHashMap<>();
+
+		for(OutboundEmail email : emails) {
+			try {
+				messages.put(createMessage(email), email);
+			}
+			catch(MessagingException ex) {
+				emailOutbox.markFailed(email, ex.getMessage());
+			}
+		}
+
+		Map<MimeMessage, Exception> failures = emailBatchSender.send(messages.keySet());
+
+		for(Map.Entry<MimeMessage, OutboundEmail> entry : messages.entrySet()) {
+			Exception failure = failures.get(entry.getKey());
+
+			if(failure == null) {
+				emailOutbox.markSent(entry.getValue());
+			}
+			else {
+				log.warn("Failed to send email {} to {}: {}", entry.getValue().getEmailId(),
+						entry.getValue().getRecipient(), failure.getMessage());
+				emailOutbox.markFailed(entry.getValue(), failure.getMessage());
+			}
+		}
+	}
+
+	private MimeMessage createMessage(OutboundEmail email) throws MessagingException {
+
+		MimeMessage message = emailBatchSender.createMessage();
+		MimeMessageHelper helper = new MimeMessageHelper(message, email.isHtml());
+
+		helper.addTo(email.getRecipient());
+		helper.setSubject(email.getSubject());
+		helper.setText(email.getContent(), email.isHtml());
+
+		return message;
+	}
+
+}
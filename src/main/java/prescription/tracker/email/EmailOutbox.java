@@ -0,0 +1,154 @@
+package prescription.tracker.email;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import prescription.tracker.exception.EmailQueueFullException;
+
+/**
+ * Service class managing the persisted outbound mail queue.
+ *
+ * <p>Emails are enqueued inside the caller's transaction, so they are only visible to the
+ * {@link EmailDispatcher} once the change that produced them has been committed. Claims lock the
+ * claimed rows, so several instances never send the same email. Failed deliveries are retried
+ * with exponential backoff until the maximum number of attempts is reached.
+ *
+ * @author josemarin
+ */
+@Service
+public class EmailOutbox {
+
+	private OutboundEmailRepository outboundEmailRepo;
+	private long capacity;
+	private int maxAttempts;
+	private Duration initialBackoff;
+	private Duration maxBackoff;
+	private Duration claimLease;
+
+	public EmailOutbox(OutboundEmailRepository outboundEmailRepo,
+			@Value("${medtrack.mail.queue.capacity:10000}") long capacity,
+			@Value("${medtrack.mail.retry.max-attempts:6}") int maxAttempts,
+			@Value("${medtrack.mail.retry.initial-backoff:30s}") Duration initialBackoff,
+			@Value("${medtrack.mail.retry.max-backoff:1h}") Duration maxBackoff,
+			@Value("${medtrack.mail.claim-lease:10m}") Duration claimLease) {
+		this.outboundEmailRepo = outboundEmailRepo;
+		this.capacity = capacity;
+		this.maxAttempts = maxAttempts;
+		this.initialBackoff = initialBackoff;
+		this.maxBackoff = maxBackoff;
+		this.claimLease = claimLease;
+	}
+
+	/**
+	 * Adds an email to the queue.
+	 *
+	 * @param recipient The recipient's email address.
+	 * @param subject   The subject line.
+	 * @param content   The rendered message body.
+	 * @param html      Whether the body is HTML rather than plain text.
+	 * @return The queued email.
+	 * @throws EmailQueueFullException if the queue already holds its maximum number of pending emails.
+	 */
+	@Transactional
+	public OutboundEmail enqueue(String recipient, String subject, String content, boolean html) {
+
+		if(outboundEmailRepo.countByStatus(OutboundEmailStatus.PENDING) >= capacity) {
+			throw new EmailQueueFullException("Outbound email queue is full, please try again later.");
+		}
+
+		return outboundEmailRepo.save(new OutboundEmail(recipient, subject, content, html));
+	}
+
+	/**
+	 * Claims up to {@code limit} due emails by moving them to {@link OutboundEmailStatus#SENDING}.
+	 * The due emails are locked until the claim commits; emails locked by another claim are skipped.
+	 *
+	 * @param limit The maximum number of emails to claim.
+	 * @return The claimed emails.
+	 */
+	@Transactional
+	public List<OutboundEmail> claimDue(int limit) {
+
+		LocalDateTime now = LocalDateTime.now();
+		List<OutboundEmail> due = outboundEmailRepo.findDue(now, PageRequest.of(0, limit));
+
+		due.forEach(email -> {
+			email.setStatus(OutboundEmailStatus.SENDING);
+			email.setClaimedAt(now);
+		});
+		return outboundEmailRepo.saveAll(due);
+	}
+
+	/**
+	 * Records a successful delivery.
+	 *
+	 * @param email The delivered email.
+	 */
+	@Transactional
+	public void markSent(OutboundEmail email) {
+
+		email.setAttempts(email.getAttempts() + 1);
+		email.setStatus(OutboundEmailStatus.SENT);
+		email.setLastError(null);
+		outboundEmailRepo.save(email);
+	}
+
+	/**
+	 * Records a failed delivery. The email is rescheduled with exponential backoff, or
+	 * marked as {@link OutboundEmailStatus#FAILED} once it has used all its attempts.
+	 *
+	 * @param email The email that could not be delivered.
+	 * @param error The reason of the failure.
+	 */
+	@Transactional
+	public void markFailed(OutboundEmail email, String error) {
+
+		int attempts = email.getAttempts() + 1;
+		email.setAttempts(attempts);
+		email.setLastError(error == null || error.length() <= 1000 ? error : error.substring(0, 1000));
+
+		if(attempts >= maxAttempts) {
+			email.setStatus(OutboundEmailStatus.FAILED);
+		}
+		else {
+			email.setStatus(OutboundEmailStatus.PENDING);
+			email.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+		}
+
+		outboundEmailRepo.save(email);
+	}
+
+	/**
+	 * Returns emails left in {@link OutboundEmailStatus#SENDING} by a stopped worker or instance
+	 * to the queue. Only claims older than the lease are returned, so emails another worker is
+	 * sending right now are not sent twice.
+	 *
+	 * @return The number of emails requeued.
+	 */
+	@Transactional
+	public int requeueInterrupted() {
+		return outboundEmailRepo.requeue(OutboundEmailStatus.SENDING, LocalDateTime.now().minus(claimLease));
+	}
+
+	/**
+	 * Computes the delay before the next attempt: the initial backoff doubled for every
+	 * previous failure, capped at the maximum backoff.
+	 *
+	 * @param attempts The number of attempts made so far.
+	 * @return The delay before the next attempt.
+	 */
+	private Duration backoff(int attempts) {
+
+		int doublings = Math.min(attempts - 1, 30);
+		Duration delay = initialBackoff.multipliedBy(1L << doublings);
+
+		return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+	}
+
+}
@@ -1,72 +1,122 @@
 package prescription.tracker.email;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
+import prescription.tracker.configuration.MetricsConfiguration;
 import prescription.tracker.medication.Medication;
 
-import org.thymeleaf.context.Context;
-
 @Service
+@Timed(MetricsConfiguration.SERVICE_TIMER)
 public class EmailService {
 
-	private JavaMailSender javaMailSender;
-	private TemplateEngine templateEngine;
+	private EmailBatchSender emailBatchSender;
+	private EmailTemplateRenderer templateRenderer;
+	private EmailOutbox emailOutbox;
+	private int batchSize;
 
-	public EmailService(JavaMailSender javaMailSender, TemplateEngine templateEngine) {
-		this.javaMailSender = javaMailSender;
-		this.templateEngine = templateEngine;
+	public EmailService(EmailBatchSender emailBatchSender, EmailTemplateRenderer templateRenderer, EmailOutbox emailOutbox,
+			@Value("${medtrack.mail.batch-size:100}") int batchSize) {
+		this.emailBatchSender = emailBatchSender;
+		this.templateRenderer = templateRenderer;
+		this.emailOutbox = emailOutbox;
+		this.batchSize = batchSize;
 	}
 
-	public void sendConfirmationEmail(String recipientEmail, String confirmationToken){
-
-		try {
-			
-			MimeMessage message = javaMailSender.createMimeMessage();
-			MimeMessageHelper helper = new MimeMessageHelper(message, true);
-			
-			helper.addTo(recipientEmail);
-			helper.setSubject("Confirm Your Email");
-			
-			Context context = new Context();
-			context.setVariable("confirmationLink", "http://localhost:8080/api/register/confirm?token=" + confirmationToken);
-			String emailContent = templateEngine.process("confirmationEmailTemplate", context);
-			
-			helper.setText(emailContent, true);
-			
-			javaMailSender.send(message);
-			
-		}
-		catch(MessagingException ex) {
-			ex.printStackTrace();
+	/**
+	 * Queues the account confirmation email for the given recipient. The message is persisted
+	 * in the caller's transaction and sent asynchronously by the {@link EmailDispatcher}.
+	 * 
+	 * @param recipientEmail    The recipient's email address.
+	 * @param confirmationToken The token embedded in the confirmation link.
+	 */
+	public void queueConfirmationEmail(String recipientEmail, String confirmationToken){
 
-		}
+		String emailContent = templateRenderer
+				.renderConfirmation("http://localhost:8080/api/register/confirm?token=" + confirmationToken);
+		
+		emailOutbox.enqueue(recipientEmail, "Confirm Your Email", emailContent, true);
 	}
 	
 	public void sendLowMedicationsNotification(String recipientEmail, List<Medication> medications) {
 		
-		try {
-			MimeMessage message = javaMailSender.createMimeMessage();
-			MimeMessageHelper helper = new MimeMessageHelper(message);
-			
+		sendLowMedicationsNotifications(List.of(new LowMedicationNotification(recipientEmail, medications)));
+	}
+	
+	/**
+	 * Sends low medication notifications in chunks. Every chunk is delivered over a single
+	 * SMTP session instead of opening one connection per recipient.
+	 * 
+	 * @param notifications The notifications to send, one per recipient.
+	 * @return The outcome of each notification, in the same order as the input.
+	 */
+	public List<EmailDeliveryResult> sendLowMedicationsNotifications(List<LowMedicationNotification> notifications) {
 		
-			helper.addTo(recipientEmail);
-			helper.setSubject("Low Medication Quantity Alert");
-			helper.setText("You have 7 days of dosis for these prescription. It's time to order a refill. \n" 
-							+ "Medications: \n" + medications.toString());
-			
-			javaMailSender.send(message);
-			
+		List<EmailDeliveryResult> results = new ArrayList<>(notifications.size());
+		
+		for(int from = 0; from < notifications.size(); from += batchSize) {
+			List<LowMedicationNotification> chunk = notifications.subList(from, Math.min(from + batchSize, notifications.size()));
+			results.addAll(sendChunk(chunk));
+		}
+		
+		return results;
+	}
+	
+	private List<EmailDeliveryResult> sendChunk(List<LowMedicationNotification> chunk) {
+		
+		MimeMessage[] messages = new MimeMessage[chunk.size()];
+		String[] buildErrors = new String[chunk.size()];
+		List<MimeMessage> toSend = new ArrayList<>(chunk.size());
+		
+		for(int i = 0; i < chunk.size(); i++) {
+			try {
+				messages[i] = createLowMedicationsMessage(chunk.get(i));
+				toSend.add(messages[i]);
+			}
+			catch(MessagingException ex) {
+				buildErrors[i] = ex.getMessage();
+			}
 		}
-		catch(MessagingException ex) {
-			ex.printStackTrace();
+		
+		Map<MimeMessage, Exception> failures = emailBatchSender.send(toSend);
+		List<EmailDeliveryResult> results = new ArrayList<>(chunk.size());
+		
+		for(int i = 0; i < chunk.size(); i++) {
+			String recipient = chunk.get(i).recipient();
+			Exception failure = messages[i] == null ? null : failures.get(messages[i]);
+			
+			if(buildErrors[i] != null) {
+				results.add(EmailDeliveryResult.failed(recipient, buildErrors[i]));
+			}
+			else if(failure != null) {
+				results.add(EmailDeliveryResult.failed(recipient, failure.getMessage()));
+			}
+			else {
+				results.add(EmailDeliveryResult.sent(recipient));
+			}
 		}
+		
+		return results;
+	}
+	
+	private MimeMessage createLowMedicationsMessage(LowMedicationNotification notification) throws MessagingException {
+		
+		MimeMessage message = emailBatchSender.createMessage();
+		MimeMessageHelper helper = new MimeMessageHelper(message, true);
+		
+		helper.addTo(notification.recipient());
+		helper.setSubject("Low Medication Quantity Alert");
+		helper.setText(templateRenderer.renderLowMedications(notification.medications()), true);
+		
+		return message;
 	}
 
 }
@@ -0,0 +1,90 @@
+package prescription.tracker.email;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import prescription.tracker.medication.Medication;
+
+/**
+ * Renders the bodies of the emails sent by MedTrack.
+ *
+ * <p>Parsed templates are kept in the template engine's cache (enabled through
+ * {@code spring.thymeleaf.cache}) and are warmed up at startup, so no request pays for parsing.
+ * The header and footer fragments do not depend on the recipient; they are rendered once and
+ * the resulting markup is reused by every message.
+ *
+ * @author josemarin
+ */
+@Component
+public class EmailTemplateRenderer {
+
+	private static final String LAYOUT_TEMPLATE = "fragments/emailLayout";
+	private static final String CONFIRMATION_TEMPLATE = "confirmationEmailTemplate";
+	private static final String LOW_MEDICATIONS_TEMPLATE = "lowMedicationsEmailTemplate";
+
+	private ITemplateEngine templateEngine;
+	private Map<String, String> renderedFragments = new ConcurrentHashMap<>();
+
+	public EmailTemplateRenderer(ITemplateEngine templateEngine) {
+		this.templateEngine = templateEngine;
+	}
+
+	/**
+	 * Parses every email template once so they are cached before the first email is sent.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void warmUp() {
+		renderConfirmation("");
+		renderLowMedications(List.of());
+	}
+
+	/**
+	 * Renders the account confirmation email.
+	 *
+	 * @param confirmationLink The link the user follows to confirm the account.
+	 * @return The HTML body of the email.
+	 */
+	public String renderConfirmation(String confirmationLink) {
+
+		Context context = layoutContext();
+		context.setVariable("confirmationLink", confirmationLink);
+
+		return templateEngine.process(CONFIRMATION_TEMPLATE, context);
+	}
+
+	/**
+	 * Renders the low medication notification email.
+	 *
+	 * @param medications The medications that are running low.
+	 * @return The HTML body of the email.
+	 */
+	public String renderLowMedications(List<Medication> medications) {
+
+		Context context = layoutContext();
+		context.setVariable("medications", medications);
+
+		return templateEngine.process(LOW_MEDICATIONS_TEMPLATE, context);
+	}
+
+	private Context layoutContext() {
+
+		Context context = new Context();
+		context.setVariable("header", fragment("header"));
+		context.setVariable("footer", fragment("footer"));
+		return context;
+	}
+
+	private String fragment(String name) {
+		return renderedFragments.computeIfAbsent(name, key ->
+				templateEngine.process(LAYOUT_TEMPLATE, Set.of(key), new Context()));
+	}
+
+}
@@ -0,0 +1,17 @@
+package prescription.tracker.email;
+
+import java.util.List;
+
+import prescription.tracker.medication.Medication;
+
+/**
+ * A low medication notification addressed to one user.
+ * 
+ * @param recipient   The recipient's email address.
+ * @param medications The medications that are running low.
+ * 
+ * @author josemarin
+ */
+public record LowMedicationNotification(String recipient, List<Medication> medications) {
+
+}
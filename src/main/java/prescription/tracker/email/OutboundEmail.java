@@ -0,0 +1,84 @@
+package prescription.tracker.email;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This class represents an email waiting in the persisted outbound mail queue.
+ * Rows are inserted in the same transaction as the change that triggers the email
+ * and are drained asynchronously by the {@link EmailDispatcher}.
+ * 
+ * @author josemarin
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "outbound_email", indexes = @Index(name = "idx_outbound_email_status_next_attempt", columnList = "status, nextAttemptAt"))
+public class OutboundEmail {
+	
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long emailId;
+	
+	@Column(nullable = false)
+	private String recipient;
+	
+	@Column(nullable = false)
+	private String subject;
+	
+	@Column(nullable = false, length = 65535)
+	private String content;
+	
+	private boolean html;
+	
+	// A plain VARCHAR on every database, as declared by the schema migrations.
+	@Enumerated(EnumType.STRING)
+	@JdbcTypeCode(SqlTypes.VARCHAR)
+	@Column(nullable = false)
+	private OutboundEmailStatus status;
+	
+	private int attempts;
+	
+	private LocalDateTime nextAttemptAt;
+	
+	@Column(length = 1000)
+	private String lastError;
+	
+	private LocalDateTime createdAt;
+	
+	// Set when a dispatcher claims the email; a claim older than the lease is considered abandoned.
+	private LocalDateTime claimedAt;
+	
+	/**
+	 * Creates a pending email that is due immediately.
+	 * 
+	 * @param recipient The recipient's email address.
+	 * @param subject   The subject line.
+	 * @param content   The rendered message body.
+	 * @param html      Whether the body is HTML rather than plain text.
+	 */
+	public OutboundEmail(String recipient, String subject, String content, boolean html) {
+		this.recipient = recipient;
+		this.subject = subject;
+		this.content = content;
+		this.html = html;
+		this.status = OutboundEmailStatus.PENDING;
+		this.createdAt = LocalDateTime.now();
+		this.nextAttemptAt = createdAt;
+	}
+
+}
@@ -0,0 +1,61 @@
+package prescription.tracker.email;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+/**
+ * This interface defines the repository for the outbound mail queue.
+ * 
+ * @see OutboundEmail
+ * @author josemarin
+ */
+public interface OutboundEmailRepository extends JpaRepository<OutboundEmail, Long> {
+	
+	/**
+	 * Counts the emails in the given state.
+	 * 
+	 * @param status The delivery state to count.
+	 * @return The number of emails in that state.
+	 */
+	long countByStatus(OutboundEmailStatus status);
+	
+	/**
+	 * Retrieves and locks the oldest pending emails whose next attempt is due. Rows locked by
+	 * another dispatcher are skipped (a lock timeout of -2 is SKIP LOCKED), so concurrent
+	 * instances claim disjoint emails without waiting on each other.
+	 * 
+	 * @param now      The current time.
+	 * @param pageable The maximum number of emails to return.
+	 * @return The due emails, oldest first.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = "-2"))
+	@Query("SELECT e FROM OutboundEmail e WHERE e.status = prescription.tracker.email.OutboundEmailStatus.PENDING "
+			+ "AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt, e.emailId")
+	List<OutboundEmail> findDue(LocalDateTime now, Pageable pageable);
+	
+	/**
+	 * Moves emails left in the given state by an interrupted run back to pending. Only claims
+	 * made before the cutoff are reset; newer ones may still be in the hands of a running instance.
+	 * 
+	 * @param status        The state to reset.
+	 * @param claimedBefore The time before which a claim is considered abandoned.
+	 * @return The number of emails requeued.
+	 */
+	@Modifying
+	@Query("UPDATE OutboundEmail e SET e.status = prescription.tracker.email.OutboundEmailStatus.PENDING, "
+			+ "e.claimedAt = null WHERE e.status = :status AND (e.claimedAt IS NULL OR e.claimedAt < :claimedBefore)")
+	int requeue(OutboundEmailStatus status, LocalDateTime claimedBefore);
+
+}
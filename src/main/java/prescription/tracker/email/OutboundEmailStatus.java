@@ -0,0 +1,22 @@
+package prescription.tracker.email;
+
+/**
+ * Delivery states of an {@link OutboundEmail} in the outbound mail queue.
+ * 
+ * @author josemarin
+ */
+public enum OutboundEmailStatus {
+	
+	/** Waiting to be sent, possibly after a failed attempt. */
+	PENDING,
+	
+	/** Claimed by a mail worker and currently being sent. */
+	SENDING,
+	
+	/** Accepted by the SMTP server. */
+	SENT,
+	
+	/** Gave up after the maximum number of attempts. */
+	FAILED
+
+}
@@ -0,0 +1,15 @@
+package prescription.tracker.exception;
+
+public class EmailQueueFullException extends RuntimeException{
+	
+	private static final long serialVersionUID = 1L;
+
+	public EmailQueueFullException(String msg) {
+		super(msg);
+	}
+	
+	public EmailQueueFullException() {
+		super();
+	}
+
+}
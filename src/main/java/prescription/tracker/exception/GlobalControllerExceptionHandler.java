@@ -1,4 +1,9 @@
 package prescription.tracker.exception;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -59,4 +64,96 @@ public class GlobalControllerExceptionHandler {
 	public ResponseEntity<String> handleDuplicateMedicationException(DuplicateMedicationException ex){
 		return ResponseEntity.badRequest().body(ex.getMessage());
 	}
+	
+	/**
+	 * Handles InvalidPageRequestException and returns a ResponseEntity with a bad request status
+	 * and the exception message.
+	 * 
+	 * @param ex The InvalidPageRequestException to handle.
+	 * @return A ResponseEntity with a bad request status and the exception message.
+	 */
+	@ExceptionHandler(InvalidPageRequestException.class)
+	public ResponseEntity<String> handleInvalidPageRequestException(InvalidPageRequestException ex){
+		return ResponseEntity.badRequest().body(ex.getMessage());
+	}
+	
+	/**
+	 * Handles InvalidMedicationEventException and returns a ResponseEntity with a bad request status
+	 * and the exception message.
+	 * 
+	 * @param ex The InvalidMedicationEventException to handle.
+	 * @return A ResponseEntity with a bad request status and the exception message.
+	 */
+	@ExceptionHandler(InvalidMedicationEventException.class)
+	public ResponseEntity<String> handleInvalidMedicationEventException(InvalidMedicationEventException ex){
+		return ResponseEntity.badRequest().body(ex.getMessage());
+	}
+	
+	/**
+	 * Handles EmailQueueFullException and returns a ResponseEntity with a service unavailable status
+	 * and the exception message.
+	 * 
+	 * @param ex The EmailQueueFullException to handle.
+	 * @return A ResponseEntity with a service unavailable status and the exception message.
+	 */
+	@ExceptionHandler(EmailQueueFullException.class)
+	public ResponseEntity<String> handleEmailQueueFullException(EmailQueueFullException ex){
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ex.getMessage());
+	}
+	
+	/**
+	 * Handles MedicationVersionConflictException and returns a ResponseEntity with a precondition
+	 * failed status, the current version of the medication as its entity tag and the exception message,
+	 * so the client can retry against the current version.
+	 * 
+	 * @param ex The MedicationVersionConflictException to handle.
+	 * @return A ResponseEntity with a precondition failed status, the current entity tag and the exception message.
+	 */
+	@ExceptionHandler(MedicationVersionConflictException.class)
+	public ResponseEntity<String> handleMedicationVersionConflictException(MedicationVersionConflictException ex){
+		return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+				.eTag(String.valueOf(ex.getCurrentVersion()))
+				.body(ex.getMessage());
+	}
+	
+	/**
+	 * Handles ObjectOptimisticLockingFailureException, raised when an entity was modified by another
+	 * request between being read and written, and returns a ResponseEntity with a conflict status.
+	 * 
+	 * @param ex The ObjectOptimisticLockingFailureException to handle.
+	 * @return A ResponseEntity with a conflict status and an error message.
+	 */
+	@ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+	public ResponseEntity<String> handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException ex){
+		return ResponseEntity.status(HttpStatus.CONFLICT).body("The resource was modified by another request; retry.");
+	}
+	
+	/**
+	 * Handles RejectedExecutionException, raised when a bounded worker pool (such as the password
+	 * hashing pool) is saturated, and returns a ResponseEntity with a service unavailable status
+	 * asking the client to retry shortly.
+	 * 
+	 * @param ex The RejectedExecutionException to handle.
+	 * @return A ResponseEntity with a service unavailable status, a retry delay and an error message.
+	 */
+	@ExceptionHandler(RejectedExecutionException.class)
+	public ResponseEntity<String> handleRejectedExecutionException(RejectedExecutionException ex){
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, "1")
+				.body("The server is busy; retry shortly.");
+	}
+	
+	/**
+	 * Handles RateLimitExceededException and returns a ResponseEntity with a too many requests
+	 * status, the delay after which the client may retry and the exception message.
+	 * 
+	 * @param ex The RateLimitExceededException to handle.
+	 * @return A ResponseEntity with a too many requests status, a retry delay and the exception message.
+	 */
+	@ExceptionHandler(RateLimitExceededException.class)
+	public ResponseEntity<String> handleRateLimitExceededException(RateLimitExceededException ex){
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+				.body(ex.getMessage());
+	}
 }
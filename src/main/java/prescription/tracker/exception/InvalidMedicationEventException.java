@@ -0,0 +1,15 @@
+package prescription.tracker.exception;
+
+public class InvalidMedicationEventException extends RuntimeException{
+	
+	private static final long serialVersionUID = 1L;
+
+	public InvalidMedicationEventException(String msg) {
+		super(msg);
+	}
+	
+	public InvalidMedicationEventException() {
+		super();
+	}
+
+}
@@ -0,0 +1,15 @@
+package prescription.tracker.exception;
+
+public class InvalidPageRequestException extends RuntimeException{
+	
+	private static final long serialVersionUID = 1L;
+
+	public InvalidPageRequestException(String msg) {
+		super(msg);
+	}
+	
+	public InvalidPageRequestException() {
+		super();
+	}
+
+}
@@ -0,0 +1,23 @@
+package prescription.tracker.exception;
+
+public class MedicationVersionConflictException extends RuntimeException{
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final Long currentVersion;
+
+	public MedicationVersionConflictException(String msg, Long currentVersion) {
+		super(msg);
+		this.currentVersion = currentVersion;
+	}
+	
+	/**
+	 * Returns the version the medication is currently at.
+	 * 
+	 * @return The current version.
+	 */
+	public Long getCurrentVersion() {
+		return currentVersion;
+	}
+
+}
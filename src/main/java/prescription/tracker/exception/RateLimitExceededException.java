@@ -0,0 +1,23 @@
+package prescription.tracker.exception;
+
+public class RateLimitExceededException extends RuntimeException{
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final long retryAfterSeconds;
+
+	public RateLimitExceededException(String msg, long retryAfterSeconds) {
+		super(msg);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+	
+	/**
+	 * Returns how long the client should wait before trying again.
+	 * 
+	 * @return The delay in whole seconds.
+	 */
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+
+}
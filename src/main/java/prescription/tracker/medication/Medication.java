@@ -3,29 +3,51 @@ package prescription.tracker.medication;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 
+import org.hibernate.annotations.DynamicUpdate;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Data;
 import lombok.Setter;
+import lombok.ToString;
 import lombok.AccessLevel;
 import prescription.tracker.user.User;
 
 /**
  * This class represents a Medication in the MedTrack application.
  * It contains medication-related data and methods for managing medications.
+ * Medications are identified by their ID (see {@link #equals(Object)}).
  * 
  * @author josemarin
  */
 @Data
 @Entity
+// Updates only write the columns that changed, so partial updates stay small.
+@DynamicUpdate
+// The reminder sweep and the paginated listings seek on these keys, so they are served from the indexes.
+@Table(indexes = {
+	@Index(name = "idx_medication_reminder_date", columnList = "reminderDate, userId, medId"),
+	@Index(name = "idx_medication_user_name", columnList = "userId, name, medId"),
+	@Index(name = "idx_medication_user_reminder_date", columnList = "userId, reminderDate, medId")
+})
 public class Medication {
 
+	// Sequence IDs (handed out in blocks of 50) let Hibernate batch inserts, which IDENTITY prevents.
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "medication_seq")
+	@SequenceGenerator(name = "medication_seq", sequenceName = "medication_seq", allocationSize = 50)
 	@Setter(AccessLevel.NONE)
 	private Long medId;
 	private String  name;
@@ -36,12 +58,28 @@ public class Medication {
 	private LocalDate lastRefilled;
 	private int reminderDays;
 
+	// Derived from the prescription when it is written, then re-projected from the balance on hand
+	// by every ledger entry (see MedicationRepository#adjustOnHand).
 	@Setter(AccessLevel.NONE)
 	private LocalDate reminderDate;
 
+	// Running balance maintained by the dose and refill ledger; starts at the prescribed quantity,
+	// and a change of the prescribed quantity shifts it by the same amount (never below zero).
+	@Setter(AccessLevel.NONE)
+	private Integer onHand;
+
+	// Incremented by every update, so a client holding an older version cannot overwrite newer data.
+	@Version
+	@Setter(AccessLevel.NONE)
+	private Long version;
+
 	//Join column annotation specifies the foreign key column (user_id) 
 	//in the medication table that references the user table.
-	@ManyToOne
+	//The owner's medication list is not serialized, otherwise the JSON would recurse forever.
+	//The owner is loaded on first use; queries that need it fetch it explicitly.
+	@JsonIgnoreProperties({"medications", "hibernateLazyInitializer"})
+	@ToString.Exclude
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "userId")
 	private User user;
 
@@ -101,10 +139,7 @@ public class Medication {
      * @throws IllegalArgumentException if timesPerDay is negative.
      */
 	public void setTimesPerDay(int timesPerDay) {
-		if (timesPerDay < 0) {
-			throw new IllegalArgumentException("timesPerDay should be positive");
-		}
-		this.timesPerDay = timesPerDay;
+		this.timesPerDay = checkTimesPerDay(timesPerDay);
 		updateReminderDate();
 	}
 
@@ -141,10 +176,7 @@ public class Medication {
      * @throws IllegalArgumentException if quantity is negative.
      */
 	public void setQuantity(int quantity) {
-		if (quantity < 0) {
-			throw new IllegalArgumentException("Quantity should be positive");
-		}
-		this.quantity = quantity;
+		this.quantity = checkQuantity(quantity);
 		updateReminderDate();
 	}
 
@@ -155,10 +187,7 @@ public class Medication {
      * @throws IllegalArgumentException if reminderDays is negative.
      */
 	public void setReminderDays(int reminderDays) {
-		if (reminderDays < 0) {
-			throw new IllegalArgumentException("Reminder days should be positive");
-		}
-		this.reminderDays = reminderDays;
+		this.reminderDays = checkReminderDays(reminderDays);
 		updateReminderDate();
 	}
 
@@ -175,6 +204,107 @@ public class Medication {
 		this.lastRefilled = lastRefilled;
 	}
 	
+	/**
+     * Starts the balance on hand at the prescribed quantity when the medication is first stored.
+     */
+	@PrePersist
+	void initOnHand() {
+		if(onHand == null) {
+			onHand = quantity;
+		}
+	}
+
+	/**
+     * Applies a partial update. Only the values present in the patch are changed, and the
+     * reminder date is recomputed once from the resulting values instead of after each one.
+     * A change of quantity shifts the balance on hand by the same amount.
+     *
+     * @param patch The values to change.
+     * @throws IllegalArgumentException if a value is invalid.
+     * @throws IllegalStateException if not enough medication is available to set the reminder duration.
+     */
+	public void applyPatch(MedicationPatch patch) {
+
+		if(patch.name() != null) {
+			setName(patch.name());
+		}
+		if(patch.dosage() != null) {
+			setDosage(patch.dosage());
+		}
+		if(patch.refills() != null) {
+			setRefills(patch.refills());
+		}
+		if(patch.lastRefilled() != null) {
+			setLastRefilled(patch.lastRefilled());
+		}
+		if(patch.quantity() != null) {
+			int newQuantity = checkQuantity(patch.quantity());
+
+			if(onHand != null) {
+				onHand = Math.max(0, onHand + newQuantity - quantity);
+			}
+			this.quantity = newQuantity;
+		}
+		if(patch.timesPerDay() != null) {
+			this.timesPerDay = checkTimesPerDay(patch.timesPerDay());
+		}
+		if(patch.reminderDays() != null) {
+			this.reminderDays = checkReminderDays(patch.reminderDays());
+		}
+
+		updateReminderDate();
+	}
+
+	private static int checkTimesPerDay(int timesPerDay) {
+		if (timesPerDay < 0) {
+			throw new IllegalArgumentException("timesPerDay should be positive");
+		}
+		return timesPerDay;
+	}
+
+	private static int checkQuantity(int quantity) {
+		if (quantity < 0) {
+			throw new IllegalArgumentException("Quantity should be positive");
+		}
+		return quantity;
+	}
+
+	private static int checkReminderDays(int reminderDays) {
+		if (reminderDays < 0) {
+			throw new IllegalArgumentException("Reminder days should be positive");
+		}
+		return reminderDays;
+	}
+
+	/**
+	 * Medications are equal when they are the same instance or have the same ID; a medication
+	 * that has not been saved yet is only equal to itself. Comparing IDs keeps membership checks
+	 * cheap and never walks into the owner.
+	 *
+	 * @param o The object to compare with.
+	 * @return True if both are the same medication.
+	 */
+	@Override
+	public boolean equals(Object o) {
+
+		if(this == o) {
+			return true;
+		}
+
+		return o instanceof Medication other && medId != null && medId.equals(other.getMedId());
+	}
+
+	/**
+	 * Returns the same hash for every medication, so the hash does not change when the ID is
+	 * assigned on save.
+	 *
+	 * @return The hash code.
+	 */
+	@Override
+	public int hashCode() {
+		return Medication.class.hashCode();
+	}
+
 	/**
      * Updates the reminder date based on the quantity of medication left,
      * the number of times the medication is taken per day, 
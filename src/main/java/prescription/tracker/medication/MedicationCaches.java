@@ -0,0 +1,48 @@
+package prescription.tracker.medication;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import prescription.tracker.configuration.CacheConfiguration;
+
+/**
+ * Access to the medication lookup caches for the write paths, which evict the entries they
+ * make stale. Reads are cached declaratively on {@link MedicationService}.
+ *
+ * @author josemarin
+ */
+@Component
+public class MedicationCaches {
+
+	private Cache medications;
+	private Cache userMedications;
+
+	public MedicationCaches(CacheManager cacheManager) {
+		this.medications = cacheManager.getCache(CacheConfiguration.MEDICATIONS);
+		this.userMedications = cacheManager.getCache(CacheConfiguration.USER_MEDICATIONS);
+	}
+
+	/**
+	 * Evicts a medication and the medication list of its owner.
+	 *
+	 * @param medId  The unique ID of the medication.
+	 * @param userId The ID of the owner, or null if it has none.
+	 */
+	public void evict(Long medId, Long userId) {
+		medications.evict(medId);
+		evictUserMedications(userId);
+	}
+
+	/**
+	 * Evicts the medication list of a user.
+	 *
+	 * @param userId The ID of the user, or null for none.
+	 */
+	public void evictUserMedications(Long userId) {
+		if(userId != null) {
+			userMedications.evict(userId);
+		}
+	}
+
+}
@@ -1,16 +1,29 @@
 package prescription.tracker.medication;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 /**
  * This class represents a controller for medications in the MedTrack application.
@@ -19,14 +32,26 @@ import org.springframework.web.bind.annotation.RequestMapping;
  * 
  * @author josemarin
  */
+@RestController
 @RequestMapping("/api/medication")
 public class MedicationController {
 	
+	private static final String APPLICATION_NDJSON = "application/x-ndjson";
+	private static final String TEXT_CSV = "text/csv";
+	private static final String APPLICATION_MERGE_PATCH_JSON = "application/merge-patch+json";
+	
 	private MedicationService medService;
+	private MedicationImportService importService;
+	private MedicationLedgerService ledgerService;
+	private ObjectMapper objectMapper;
 	
 	
-	public MedicationController(MedicationService medService) {
+	public MedicationController(MedicationService medService, MedicationImportService importService,
+			MedicationLedgerService ledgerService, ObjectMapper objectMapper) {
 		this.medService = medService;
+		this.importService = importService;
+		this.ledgerService = ledgerService;
+		this.objectMapper = objectMapper;
 	}
 	
 	/**
@@ -36,20 +61,49 @@ public class MedicationController {
 	 * @return A ResponseEntity with the added medication and a status code (201 - Created).
 	 */
 	@PostMapping("/add")
-	public ResponseEntity<Medication> addMedication(@RequestBody Medication medication){
+	public ResponseEntity<MedicationView> addMedication(@RequestBody Medication medication){
 		medService.addMedication(medication);
-		return ResponseEntity.status(HttpStatus.CREATED).body(medication);
+		return ResponseEntity.status(HttpStatus.CREATED).body(MedicationView.from(medication));
+	}
+	
+	/**
+	 * Endpoint to import a user's medications in bulk from a CSV upload. The request body is
+	 * read as a stream, so uploads of any size can be imported.
+	 * 
+	 * @param userId The unique identifier of the user who owns the medications.
+	 * @param body   The CSV upload, starting with a header line.
+	 * @return A ResponseEntity with the number of imported medications and the rejected rows.
+	 * @throws IOException if the upload cannot be read.
+	 */
+	@PostMapping(value = "/import/{userId}", consumes = TEXT_CSV)
+	public ResponseEntity<MedicationImportResult> importCsv(@PathVariable Long userId, InputStream body) throws IOException {
+		return ResponseEntity.ok(importService.importCsv(userId, body));
+	}
+	
+	/**
+	 * Endpoint to import a user's medications in bulk from a newline-delimited JSON upload.
+	 * The request body is read as a stream, so uploads of any size can be imported.
+	 * 
+	 * @param userId The unique identifier of the user who owns the medications.
+	 * @param body   The NDJSON upload, one medication per line.
+	 * @return A ResponseEntity with the number of imported medications and the rejected rows.
+	 * @throws IOException if the upload cannot be read.
+	 */
+	@PostMapping(value = "/import/{userId}", consumes = APPLICATION_NDJSON)
+	public ResponseEntity<MedicationImportResult> importNdjson(@PathVariable Long userId, InputStream body) throws IOException {
+		return ResponseEntity.ok(importService.importNdjson(userId, body));
 	}
 	
 	/**
 	 * Endpoint to retrieve medication details by its unique ID.
 	 * 
 	 * @param medId The unique ID of the medication to retrieve.
-	 * @return A ResponseEntity with the retrieved medication and a status code (200 - OK).
+	 * @return A ResponseEntity with the retrieved medication, its version as entity tag and a status code (200 - OK).
 	 */
 	@GetMapping("/{medId}")
-	public ResponseEntity<Medication> getMedication(Long medId){
-		return ResponseEntity.ok(medService.getMedication(medId));
+	public ResponseEntity<MedicationView> getMedication(@PathVariable Long medId){
+		MedicationView medication = medService.getMedication(medId);
+		return ResponseEntity.ok().eTag(String.valueOf(medication.version())).body(medication);
 	}
 	
 	/**
@@ -59,29 +113,156 @@ public class MedicationController {
 	 * @return A ResponseEntity containing the list of medications associated with the specified user.
 	 */
 	@GetMapping("/get/{userId}")
-	public ResponseEntity<List<Medication>> getUserMedications(@PathVariable Long userId){
+	public ResponseEntity<List<MedicationView>> getUserMedications(@PathVariable Long userId){
 		return ResponseEntity.ok(medService.getUserMedication(userId));
 	}
 	
+	/**
+	 * Retrieves one page of the medications associated with a specific user.
+	 * 
+	 * @param userId The unique identifier of the user whose medications are to be retrieved.
+	 * @param sort   The order of the listing: name (default) or reminderDate.
+	 * @param size   The maximum number of medications in the page (1 to 100, default 50).
+	 * @param cursor The nextCursor of the previous page; omitted for the first page.
+	 * @return A ResponseEntity containing the page and the cursor of the next one.
+	 */
+	@GetMapping("/page/{userId}")
+	public ResponseEntity<MedicationPage> getUserMedicationPage(@PathVariable Long userId,
+			@RequestParam(defaultValue = "name") String sort,
+			@RequestParam(defaultValue = "50") int size,
+			@RequestParam(required = false) String cursor){
+		
+		return ResponseEntity.ok(medService.getUserMedicationPage(userId, MedicationSort.fromParameter(sort), size, cursor));
+	}
+	
+	/**
+	 * Streams the medications associated with a specific user as newline-delimited JSON.
+	 * Medications are read from a database cursor and written to the response one at a time,
+	 * so memory use stays constant regardless of how many medications the user has.
+	 * 
+	 * @param userId The unique identifier of the user whose medications are to be streamed.
+	 * @return A ResponseEntity streaming one JSON medication per line.
+	 */
+	@GetMapping(value = "/stream/{userId}", produces = APPLICATION_NDJSON)
+	public ResponseEntity<StreamingResponseBody> streamUserMedications(@PathVariable Long userId){
+		
+		ObjectWriter writer = objectMapper.writerFor(MedicationView.class);
+		
+		StreamingResponseBody body = outputStream -> 
+			medService.streamUserMedications(userId, medication -> {
+				try {
+					outputStream.write(writer.writeValueAsBytes(medication));
+					outputStream.write('\n');
+				}
+				catch(IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+			});
+		
+		return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON)).body(body);
+	}
+	
+	/**
+	 * Endpoint to record a dose taken or a refill of a medication. The medication's balance on
+	 * hand is adjusted by the same request.
+	 * 
+	 * @param medId   The unique ID of the medication.
+	 * @param request The dose or refill, provided in the request body.
+	 * @return A ResponseEntity with the recorded entry and a status code (201 - Created).
+	 */
+	@PostMapping("/{medId}/events")
+	public ResponseEntity<MedicationEventView> recordEvent(@PathVariable Long medId,
+			@RequestBody MedicationEventRequest request){
+		return ResponseEntity.status(HttpStatus.CREATED).body(ledgerService.recordEvent(medId, request));
+	}
+	
+	/**
+	 * Retrieves a page of the doses and refills of a medication, newest first.
+	 * 
+	 * @param medId  The unique ID of the medication.
+	 * @param before The eventId of the last entry of the previous page; omitted for the latest entries.
+	 * @param size   The maximum number of entries in the page (1 to 100, default 50).
+	 * @return A ResponseEntity containing the entries of the page.
+	 */
+	@GetMapping("/{medId}/events")
+	public ResponseEntity<List<MedicationEventView>> getEvents(@PathVariable Long medId,
+			@RequestParam(required = false) Long before,
+			@RequestParam(defaultValue = "50") int size){
+		return ResponseEntity.ok(ledgerService.getEvents(medId, before, size));
+	}
+	
 	/**
 	 * Endpoint to delete a medication by its ID.
 	 * 
 	 * @param medId The unique ID of the medication to delete.
-	 * @return A ResponseEntity with the deleted medication and a status code (200 - OK).
+	 * @return A ResponseEntity with a status code (204 - No Content).
 	 */
 	@DeleteMapping("/delete/{medId}")
-	public ResponseEntity<Medication> deleteMedication(Long medId){
-		return ResponseEntity.ok(medService.deleteMedication(medId));
+	public ResponseEntity<Void> deleteMedication(@PathVariable Long medId){
+		medService.deleteMedication(medId);
+		return ResponseEntity.noContent().build();
 	}
 	
 	/**
-	 * Endpoint to update an existing medication.
+	 * Endpoint to update an existing medication. With an If-Match header holding the entity tag
+	 * of a previous read, the update only applies if the medication has not been modified since;
+	 * otherwise the response is 412 (Precondition Failed) with the current entity tag.
 	 * 
 	 * @param medication The updated medication details provided in the request body.
-	 * @return A ResponseEntity with the updated medication and a status code (200 - OK).
+	 * @param ifMatch    The entity tag the client last read, or null (or *) to update unconditionally.
+	 * @return A ResponseEntity with the updated medication, its new entity tag and a status code (200 - OK).
 	 */
 	@PutMapping("/update")
-	public ResponseEntity<Medication> updateMedication(@RequestBody Medication medication){
-		return ResponseEntity.ok(medService.updateMedication(medication));
+	public ResponseEntity<MedicationView> updateMedication(@RequestBody Medication medication,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+		
+		MedicationView updated = medService.updateMedication(medication, expectedVersion(ifMatch));
+		
+		if(updated.version() == null) {
+			return ResponseEntity.ok(updated);
+		}
+		return ResponseEntity.ok().eTag(String.valueOf(updated.version())).body(updated);
+	}
+	
+	/**
+	 * Endpoint to partially update a medication with a JSON merge patch (RFC 7396). Only the
+	 * members present in the patch are changed. An If-Match header makes the patch conditional,
+	 * as for full updates.
+	 * 
+	 * @param medId   The unique ID of the medication to update.
+	 * @param patch   The values to change, provided in the request body.
+	 * @param ifMatch The entity tag the client last read, or null (or *) to patch unconditionally.
+	 * @return A ResponseEntity with the updated medication, its new entity tag and a status code (200 - OK).
+	 */
+	@PatchMapping(value = "/{medId}", consumes = {APPLICATION_MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+	public ResponseEntity<MedicationView> patchMedication(@PathVariable Long medId, @RequestBody MedicationPatch patch,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+		
+		MedicationView updated = medService.patchMedication(medId, patch, expectedVersion(ifMatch));
+		return ResponseEntity.ok().eTag(String.valueOf(updated.version())).body(updated);
+	}
+	
+	/**
+	 * Reads the version out of an If-Match header. Entity tags are the quoted version number;
+	 * weak or malformed tags can never match, so they map to a version no medication has.
+	 */
+	private static Long expectedVersion(String ifMatch) {
+		
+		if(ifMatch == null || ifMatch.isBlank() || ifMatch.strip().equals("*")) {
+			return null;
+		}
+		
+		String tag = ifMatch.strip();
+		
+		if(tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+			return -1L;
+		}
+		
+		try {
+			return Long.parseLong(tag.substring(1, tag.length() - 1));
+		}
+		catch(NumberFormatException ex) {
+			return -1L;
+		}
 	}
 }
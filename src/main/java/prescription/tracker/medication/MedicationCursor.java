@@ -0,0 +1,90 @@
+package prescription.tracker.medication;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import prescription.tracker.exception.InvalidPageRequestException;
+
+/**
+ * Position of the last row of a medication page: the order it was read in, the value of the
+ * sort column and the medication ID. It is handed to clients as an opaque URL-safe string.
+ *
+ * @param sort      The order of the listing.
+ * @param sortValue The sort column value of the last row ({@code null} for a missing reminder date).
+ * @param medId     The medication ID of the last row.
+ *
+ * @author josemarin
+ */
+record MedicationCursor(MedicationSort sort, String sortValue, long medId) {
+
+	/**
+	 * Builds the cursor pointing after the given row.
+	 *
+	 * @param sort       The order of the listing.
+	 * @param medication The last row of the page.
+	 * @return The cursor of the next page.
+	 */
+	static MedicationCursor after(MedicationSort sort, MedicationView medication) {
+
+		String sortValue = switch(sort) {
+			case NAME -> medication.name();
+			case REMINDER_DATE -> medication.reminderDate() == null ? null : medication.reminderDate().toString();
+		};
+
+		return new MedicationCursor(sort, sortValue, medication.medId());
+	}
+
+	/**
+	 * Returns the reminder date the cursor points after.
+	 *
+	 * @return The reminder date, or null if the last row had none.
+	 */
+	LocalDate reminderDate() {
+		return sortValue == null ? null : LocalDate.parse(sortValue);
+	}
+
+	/**
+	 * Encodes the cursor as an opaque string.
+	 *
+	 * @return The encoded cursor.
+	 */
+	String encode() {
+
+		// The sort value goes last because names may contain the separator.
+		String raw = sort.name() + ":" + medId + ":" + (sortValue == null ? "" : "=" + sortValue);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Decodes a cursor produced by {@link #encode()}.
+	 *
+	 * @param cursor The encoded cursor.
+	 * @return The decoded cursor.
+	 * @throws InvalidPageRequestException if the string is not a valid cursor.
+	 */
+	static MedicationCursor decode(String cursor) {
+
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			String[] parts = raw.split(":", 3);
+
+			MedicationSort sort = MedicationSort.valueOf(parts[0]);
+			long medId = Long.parseLong(parts[1]);
+			String sortValue = parts[2].isEmpty() ? null : parts[2].substring(1);
+
+			MedicationCursor decoded = new MedicationCursor(sort, sortValue, medId);
+
+			if(sort == MedicationSort.REMINDER_DATE) {
+				decoded.reminderDate();
+			}
+
+			return decoded;
+		}
+		catch(IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeParseException ex) {
+			throw new InvalidPageRequestException("Invalid cursor: " + cursor);
+		}
+	}
+
+}
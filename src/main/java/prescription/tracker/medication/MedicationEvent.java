@@ -0,0 +1,81 @@
+package prescription.tracker.medication;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This class represents an entry of the append-only medication ledger: a dose taken or a refill.
+ * Each entry records the balance on hand it left behind, so the history can be read without
+ * replaying earlier entries.
+ * 
+ * @author josemarin
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "medication_event", indexes = @Index(name = "idx_medication_event_med", columnList = "medId, eventId"))
+public class MedicationEvent {
+	
+	// Identity values are assigned at insert time, after the balance update has locked the
+	// medication row, so a medication's entries are numbered in the order they were applied.
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long eventId;
+	
+	// Entries are removed by the database together with their medication.
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
+	@JoinColumn(name = "medId")
+	@OnDelete(action = OnDeleteAction.CASCADE)
+	private Medication medication;
+	
+	// A plain VARCHAR on every database, as declared by the schema migrations.
+	@Enumerated(EnumType.STRING)
+	@JdbcTypeCode(SqlTypes.VARCHAR)
+	@Column(nullable = false)
+	private MedicationEventType type;
+	
+	private int amount;
+	
+	private int balanceAfter;
+	
+	@Column(nullable = false)
+	private LocalDateTime occurredAt;
+	
+	/**
+	 * Constructor to initialize a new ledger entry.
+	 * 
+	 * @param medication   The medication the entry belongs to.
+	 * @param type         Whether medication was taken or refilled.
+	 * @param amount       The amount of medication taken or refilled.
+	 * @param balanceAfter The balance on hand after the entry.
+	 * @param occurredAt   When the dose was taken or the medication refilled.
+	 */
+	public MedicationEvent(Medication medication, MedicationEventType type, int amount, int balanceAfter,
+			LocalDateTime occurredAt) {
+		this.medication = medication;
+		this.type = type;
+		this.amount = amount;
+		this.balanceAfter = balanceAfter;
+		this.occurredAt = occurredAt;
+	}
+
+}
@@ -0,0 +1,45 @@
+package prescription.tracker.medication;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+/**
+ * This interface defines the repository for the medication ledger. Entries are only ever
+ * inserted; the history is read newest first, one keyset page at a time.
+ * 
+ * @see MedicationEvent
+ * @author josemarin
+ */
+public interface MedicationEventRepository extends JpaRepository<MedicationEvent, Long> {
+	
+	/**
+	 * Select clause projecting a ledger entry into a {@link MedicationEventView}.
+	 */
+	String SELECT_VIEW = "SELECT new prescription.tracker.medication.MedicationEventView(e.eventId, "
+			+ "e.medication.medId, e.type, e.amount, e.balanceAfter, e.occurredAt) FROM MedicationEvent e ";
+	
+	/**
+	 * Retrieves the latest ledger entries of a medication, newest first.
+	 * 
+	 * @param medId    The unique ID of the medication.
+	 * @param pageable The page size to read; only the size is used.
+	 * @return The latest entries.
+	 */
+	@Query(SELECT_VIEW + "WHERE e.medication.medId = :medId ORDER BY e.eventId DESC")
+	List<MedicationEventView> findLatestByMedId(Long medId, Pageable pageable);
+	
+	/**
+	 * Retrieves the ledger entries of a medication that precede the given entry, newest first
+	 * (keyset pagination).
+	 * 
+	 * @param medId    The unique ID of the medication.
+	 * @param eventId  The ID of the last entry of the previous page.
+	 * @param pageable The page size to read; only the size is used.
+	 * @return The next page of entries.
+	 */
+	@Query(SELECT_VIEW + "WHERE e.medication.medId = :medId AND e.eventId < :eventId ORDER BY e.eventId DESC")
+	List<MedicationEventView> findByMedIdBefore(Long medId, Long eventId, Pageable pageable);
+}
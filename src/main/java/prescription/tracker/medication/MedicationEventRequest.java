@@ -0,0 +1,16 @@
+package prescription.tracker.medication;
+
+import java.time.LocalDateTime;
+
+/**
+ * A dose or refill to record in the medication ledger.
+ * 
+ * @param type       Whether medication was taken or refilled.
+ * @param amount     The amount of medication taken or refilled; must be positive.
+ * @param occurredAt When it happened; defaults to now.
+ * 
+ * @author josemarin
+ */
+public record MedicationEventRequest(MedicationEventType type, int amount, LocalDateTime occurredAt) {
+
+}
@@ -0,0 +1,26 @@
+package prescription.tracker.medication;
+
+/**
+ * Kinds of entries in the medication ledger.
+ * 
+ * @author josemarin
+ */
+public enum MedicationEventType {
+	
+	/** Medication taken; the amount is subtracted from the balance on hand. */
+	DOSE,
+	
+	/** Medication refilled; the amount is added to the balance on hand. */
+	REFILL;
+	
+	/**
+	 * Returns the change an event of this type makes to the balance on hand.
+	 * 
+	 * @param amount The amount of medication taken or refilled.
+	 * @return The signed change to the balance.
+	 */
+	public int delta(int amount) {
+		return this == DOSE ? -amount : amount;
+	}
+
+}
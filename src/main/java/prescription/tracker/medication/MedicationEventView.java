@@ -0,0 +1,20 @@
+package prescription.tracker.medication;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of a {@link MedicationEvent} returned by the API.
+ * 
+ * @param eventId      Unique identifier for the entry.
+ * @param medId        The ID of the medication the entry belongs to.
+ * @param type         Whether medication was taken or refilled.
+ * @param amount       The amount of medication taken or refilled.
+ * @param balanceAfter The balance on hand after the entry.
+ * @param occurredAt   When the dose was taken or the medication refilled.
+ * 
+ * @author josemarin
+ */
+public record MedicationEventView(Long eventId, Long medId, MedicationEventType type, int amount, int balanceAfter,
+		LocalDateTime occurredAt) {
+
+}
@@ -0,0 +1,13 @@
+package prescription.tracker.medication;
+
+/**
+ * A row of a medication import that was rejected.
+ * 
+ * @param line    The line number of the row in the uploaded file (1-based).
+ * @param message The reason the row was rejected.
+ * 
+ * @author josemarin
+ */
+public record MedicationImportError(long line, String message) {
+
+}
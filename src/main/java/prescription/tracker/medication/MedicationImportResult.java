@@ -0,0 +1,16 @@
+package prescription.tracker.medication;
+
+import java.util.List;
+
+/**
+ * Summary of a medication import.
+ * 
+ * @param imported The number of medications stored.
+ * @param failed   The number of rows rejected.
+ * @param errors   The rejected rows, up to the configured maximum number of reported errors.
+ * 
+ * @author josemarin
+ */
+public record MedicationImportResult(long imported, long failed, List<MedicationImportError> errors) {
+
+}
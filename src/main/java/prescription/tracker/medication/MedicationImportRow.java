@@ -0,0 +1,33 @@
+package prescription.tracker.medication;
+
+import java.time.LocalDate;
+
+/**
+ * One medication as read from an import file, before validation.
+ * 
+ * @param name         Name of the medication.
+ * @param dosage       Dosage of the medication.
+ * @param quantity     Total quantity of the medication.
+ * @param refills      Number of refills available for the medication.
+ * @param timesPerDay  Frequency of medication intake daily.
+ * @param lastRefilled Date when the medication was last refilled; defaults to today.
+ * @param reminderDays Number of days before running out to trigger a reminder.
+ * 
+ * @author josemarin
+ */
+public record MedicationImportRow(String name, double dosage, int quantity, int refills, int timesPerDay,
+		LocalDate lastRefilled, int reminderDays) {
+	
+	/**
+	 * Builds the medication described by this row. The Medication setters validate every value.
+	 * 
+	 * @return A new, unsaved medication without an owner.
+	 * @throws IllegalArgumentException if a value is invalid.
+	 * @throws IllegalStateException if the quantity does not cover the reminder duration.
+	 */
+	Medication toMedication() {
+		return new Medication(null, name, dosage, quantity, refills, timesPerDay,
+				lastRefilled == null ? LocalDate.now() : lastRefilled, reminderDays, null);
+	}
+
+}
@@ -0,0 +1,287 @@
+package prescription.tracker.medication;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import jakarta.persistence.EntityManager;
+import prescription.tracker.exception.UserNotFoundException;
+import prescription.tracker.user.User;
+import prescription.tracker.user.UserRepository;
+
+/**
+ * Imports medications in bulk from CSV or newline-delimited JSON uploads.
+ *
+ * <p>The upload is read one line at a time and every row is validated by the {@link Medication}
+ * setters. Valid rows are stored in chunks, each in its own transaction: the chunk is persisted,
+ * flushed as JDBC batch inserts and cleared from the persistence context, so neither the upload
+ * nor the stored medications are ever held in memory as a whole. Invalid rows are skipped and
+ * reported by line number.
+ *
+ * @author josemarin
+ */
+@Service
+public class MedicationImportService {
+
+	private static final String[] CSV_COLUMNS = {
+		"name", "dosage", "quantity", "refills", "timesPerDay", "lastRefilled", "reminderDays"
+	};
+
+	private TransactionTemplate transactionTemplate;
+	private EntityManager entityManager;
+	private UserRepository userRepo;
+	private MedicationCaches medicationCaches;
+	private ObjectReader rowReader;
+	private int chunkSize;
+	private int maxReportedErrors;
+
+	public MedicationImportService(TransactionTemplate transactionTemplate, EntityManager entityManager,
+			UserRepository userRepo, MedicationCaches medicationCaches, ObjectMapper objectMapper,
+			@Value("${medtrack.import.chunk-size:1000}") int chunkSize,
+			@Value("${medtrack.import.max-reported-errors:1000}") int maxReportedErrors) {
+		this.transactionTemplate = transactionTemplate;
+		this.entityManager = entityManager;
+		this.userRepo = userRepo;
+		this.medicationCaches = medicationCaches;
+		this.rowReader = objectMapper.readerFor(MedicationImportRow.class);
+		this.chunkSize = chunkSize;
+		this.maxReportedErrors = maxReportedErrors;
+	}
+
+	/**
+	 * Imports medications from a CSV upload. The first line is a header naming the columns
+	 * name, dosage, quantity, refills, timesPerDay, lastRefilled and reminderDays, in any order;
+	 * lastRefilled may be left empty to use today's date.
+	 *
+	 * @param userId The unique identifier of the user who owns the medications.
+	 * @param input  The CSV upload.
+	 * @return The number of medications imported and the rows that were rejected.
+	 * @throws UserNotFoundException if the user does not exist.
+	 * @throws IOException if the upload cannot be read.
+	 */
+	public MedicationImportResult importCsv(long userId, InputStream input) throws IOException {
+
+		try(BufferedReader reader = open(userId, input)) {
+
+			String header = reader.readLine();
+
+			if(header == null) {
+				return new MedicationImportResult(0, 0, List.of());
+			}
+
+			Map<String, Integer> columns = csvColumns(header);
+
+			if(columns == null) {
+				return new MedicationImportResult(0, 1, List.of(new MedicationImportError(1,
+						"Header must name the columns " + String.join(", ", CSV_COLUMNS))));
+			}
+
+			return importRows(userId, reader, 2, line -> csvRow(splitCsvLine(line), columns));
+		}
+	}
+
+	/**
+	 * Imports medications from a newline-delimited JSON upload, one medication object per line
+	 * with the same properties as the CSV columns.
+	 *
+	 * @param userId The unique identifier of the user who owns the medications.
+	 * @param input  The NDJSON upload.
+	 * @return The number of medications imported and the rows that were rejected.
+	 * @throws UserNotFoundException if the user does not exist.
+	 * @throws IOException if the upload cannot be read.
+	 */
+	public MedicationImportResult importNdjson(long userId, InputStream input) throws IOException {
+
+		try(BufferedReader reader = open(userId, input)) {
+			return importRows(userId, reader, 1, rowReader::readValue);
+		}
+	}
+
+	private BufferedReader open(long userId, InputStream input) {
+
+		if(!userRepo.existsById(userId)) {
+			throw new UserNotFoundException("User with ID: " + userId + " not found.");
+		}
+
+		return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+	}
+
+	private MedicationImportResult importRows(long userId, BufferedReader reader, long firstLine,
+			RowParser parser) throws IOException {
+
+		long lineNumber = firstLine - 1;
+		long imported = 0;
+		long failed = 0;
+		List<MedicationImportError> errors = new ArrayList<>();
+		List<Medication> chunk = new ArrayList<>(chunkSize);
+		String line;
+
+		while((line = reader.readLine()) != null) {
+			lineNumber++;
+
+			if(line.isBlank()) {
+				continue;
+			}
+
+			try {
+				chunk.add(parser.parse(line).toMedication());
+			}
+			catch(IllegalArgumentException | IllegalStateException | DateTimeParseException
+					| JsonProcessingException ex) {
+				failed++;
+
+				if(errors.size() < maxReportedErrors) {
+					String message = ex instanceof JsonProcessingException json ? json.getOriginalMessage() : ex.getMessage();
+					errors.add(new MedicationImportError(lineNumber, message));
+				}
+			}
+
+			if(chunk.size() == chunkSize) {
+				imported += store(userId, chunk);
+				chunk.clear();
+			}
+		}
+
+		imported += store(userId, chunk);
+
+		return new MedicationImportResult(imported, failed, errors);
+	}
+
+	/**
+	 * Stores a chunk of medications in one transaction. Sequence IDs are allocated in blocks,
+	 * so Hibernate sends the inserts as JDBC batches. The owner's cached medication list is
+	 * evicted once the chunk commits, so listings show every chunk stored so far.
+	 */
+	private int store(long userId, List<Medication> chunk) {
+
+		if(chunk.isEmpty()) {
+			return 0;
+		}
+
+		transactionTemplate.executeWithoutResult(status -> {
+			User owner = entityManager.getReference(User.class, userId);
+
+			for(Medication medication : chunk) {
+				medication.setUser(owner);
+				entityManager.persist(medication);
+			}
+
+			entityManager.flush();
+			entityManager.clear();
+
+			medicationCaches.evictUserMedications(userId);
+		});
+
+		return chunk.size();
+	}
+
+	private static Map<String, Integer> csvColumns(String header) {
+
+		List<String> names = splitCsvLine(header);
+		Map<String, Integer> columns = new HashMap<>();
+
+		for(int i = 0; i < names.size(); i++) {
+			columns.put(names.get(i).strip(), i);
+		}
+
+		for(String column : CSV_COLUMNS) {
+			if(!columns.containsKey(column)) {
+				return null;
+			}
+		}
+
+		return columns;
+	}
+
+	private static MedicationImportRow csvRow(List<String> values, Map<String, Integer> columns) {
+
+		String lastRefilled = csvValue(values, columns, "lastRefilled");
+
+		return new MedicationImportRow(
+				csvValue(values, columns, "name"),
+				Double.parseDouble(csvValue(values, columns, "dosage")),
+				Integer.parseInt(csvValue(values, columns, "quantity")),
+				Integer.parseInt(csvValue(values, columns, "refills")),
+				Integer.parseInt(csvValue(values, columns, "timesPerDay")),
+				lastRefilled.isEmpty() ? null : LocalDate.parse(lastRefilled),
+				Integer.parseInt(csvValue(values, columns, "reminderDays")));
+	}
+
+	private static String csvValue(List<String> values, Map<String, Integer> columns, String column) {
+
+		int index = columns.get(column);
+
+		if(index >= values.size()) {
+			throw new IllegalArgumentException("Missing value for " + column);
+		}
+
+		return values.get(index).strip();
+	}
+
+	/**
+	 * Splits a CSV line into its values. Values may be enclosed in double quotes, in which case
+	 * they may contain commas and escaped ("") quotes.
+	 */
+	private static List<String> splitCsvLine(String line) {
+
+		List<String> values = new ArrayList<>();
+		StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+
+		for(int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+
+			if(quoted) {
+				if(c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					value.append('"');
+					i++;
+				}
+				else if(c == '"') {
+					quoted = false;
+				}
+				else {
+					value.append(c);
+				}
+			}
+			else if(c == '"') {
+				quoted = true;
+			}
+			else if(c == ',') {
+				values.add(value.toString());
+				value.setLength(0);
+			}
+			else {
+				value.append(c);
+			}
+		}
+
+		if(quoted) {
+			throw new IllegalArgumentException("Unterminated quoted value");
+		}
+
+		values.add(value.toString());
+		return values;
+	}
+
+	@FunctionalInterface
+	private interface RowParser {
+		MedicationImportRow parse(String line) throws JsonProcessingException;
+	}
+
+}
@@ -0,0 +1,103 @@
+package prescription.tracker.medication;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import prescription.tracker.exception.InvalidMedicationEventException;
+import prescription.tracker.exception.InvalidPageRequestException;
+import prescription.tracker.exception.MedicationNotFoundException;
+
+/**
+ * Service class responsible for the medication ledger: the doses taken and refills of each
+ * medication, and the balance on hand they add up to.
+ *
+ * <p>The balance is stored on the medication and adjusted in place by every entry, so reading it
+ * never replays the ledger. Each entry also records the balance it left behind, and re-projects
+ * the medication's reminder date from it, so the reminder sweep follows the doses actually taken.
+ *
+ * @author josemarin
+ */
+@Service
+public class MedicationLedgerService {
+	
+	private static final int MAX_PAGE_SIZE = 100;
+	
+	private MedicationRepository medicationRepo;
+	private MedicationEventRepository eventRepo;
+	private MedicationCaches medicationCaches;
+	
+	
+	public MedicationLedgerService(MedicationRepository medicationRepo, MedicationEventRepository eventRepo,
+			MedicationCaches medicationCaches) {
+		this.medicationRepo = medicationRepo;
+		this.eventRepo = eventRepo;
+		this.medicationCaches = medicationCaches;
+	}
+	
+	/**
+	 * Records a dose or refill and adjusts the medication's balance on hand accordingly.
+	 * 
+	 * @param medId   The unique ID of the medication.
+	 * @param request The dose or refill to record.
+	 * @return The view of the recorded entry, with the resulting balance.
+	 * @throws InvalidMedicationEventException if the entry is invalid or a dose exceeds the balance on hand.
+	 * @throws MedicationNotFoundException if the medication with the specified ID is not found.
+	 */
+	@Transactional
+	public MedicationEventView recordEvent(Long medId, MedicationEventRequest request) {
+		
+		if(request.type() == null) {
+			throw new InvalidMedicationEventException("Event type is required.");
+		}
+		
+		if(request.amount() <= 0) {
+			throw new InvalidMedicationEventException("Amount should be positive");
+		}
+		
+		if(medicationRepo.adjustOnHand(medId, request.type().delta(request.amount())) == 0) {
+			// Only the failure path reads the balance, to tell a missing medication from a short one.
+			int onHand = medicationRepo.findOnHandByMedId(medId).orElseThrow(() -> 
+				new MedicationNotFoundException("Medication with ID: " + medId + " not found.")
+			);
+			throw new InvalidMedicationEventException("Not enough medication on hand: " + onHand + ".");
+		}
+		
+		// The row is locked by the adjustment, so this is the balance the entry produced.
+		MedicationView adjusted = medicationRepo.findViewByMedId(medId).orElseThrow();
+		int balance = adjusted.onHand();
+		medicationCaches.evict(medId, adjusted.userId());
+		
+		LocalDateTime occurredAt = request.occurredAt() == null ? LocalDateTime.now() : request.occurredAt();
+		
+		MedicationEvent event = eventRepo.save(new MedicationEvent(medicationRepo.getReferenceById(medId),
+				request.type(), request.amount(), balance, occurredAt));
+		
+		return new MedicationEventView(event.getEventId(), medId, event.getType(), event.getAmount(),
+				event.getBalanceAfter(), event.getOccurredAt());
+	}
+	
+	/**
+	 * Retrieves a page of a medication's ledger, newest entry first.
+	 * 
+	 * @param medId  The unique ID of the medication.
+	 * @param before The ID of the last entry of the previous page, or null for the latest entries.
+	 * @param size   The maximum number of entries in the page.
+	 * @return The entries of the page.
+	 * @throws InvalidPageRequestException if the size is out of range.
+	 */
+	public List<MedicationEventView> getEvents(Long medId, Long before, int size) {
+		
+		if(size < 1 || size > MAX_PAGE_SIZE) {
+			throw new InvalidPageRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+		}
+		
+		return before == null
+				? eventRepo.findLatestByMedId(medId, PageRequest.of(0, size))
+				: eventRepo.findByMedIdBefore(medId, before, PageRequest.of(0, size));
+	}
+
+}
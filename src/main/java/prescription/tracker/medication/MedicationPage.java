@@ -0,0 +1,15 @@
+package prescription.tracker.medication;
+
+import java.util.List;
+
+/**
+ * One page of a user's medications.
+ * 
+ * @param medications The medications of the page, in the requested order.
+ * @param nextCursor  Opaque cursor to pass back to fetch the next page, or null on the last page.
+ * 
+ * @author josemarin
+ */
+public record MedicationPage(List<MedicationView> medications, String nextCursor) {
+
+}
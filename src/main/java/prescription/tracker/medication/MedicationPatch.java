@@ -0,0 +1,23 @@
+package prescription.tracker.medication;
+
+import java.time.LocalDate;
+
+/**
+ * Partial update of a {@link Medication}, read from a JSON merge patch. Members left out of the
+ * patch are null and leave the stored value unchanged. Every medication value is required, so an
+ * explicit null cannot remove a value and is treated the same as a missing member.
+ * 
+ * @param name         New name of the medication.
+ * @param dosage       New dosage of the medication.
+ * @param quantity     New total quantity of the medication.
+ * @param refills      New number of refills available for the medication.
+ * @param timesPerDay  New frequency of medication intake daily.
+ * @param lastRefilled New date when the medication was last refilled.
+ * @param reminderDays New number of days before running out to trigger a reminder.
+ * 
+ * @author josemarin
+ */
+public record MedicationPatch(String name, Double dosage, Integer quantity, Integer refills, Integer timesPerDay,
+		LocalDate lastRefilled, Integer reminderDays) {
+
+}
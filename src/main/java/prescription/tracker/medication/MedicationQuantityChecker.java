@@ -1,8 +1,5 @@
 package prescription.tracker.medication;
 
-import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
-
 import org.springframework.stereotype.Component;
 
 @Component
@@ -13,10 +10,15 @@ public class MedicationQuantityChecker {
 	
 	
 	
+	/**
+	 * Returns the quantity of a medication left on hand. The balance is maintained by the
+	 * medication ledger as doses and refills are recorded, so nothing is recomputed here.
+	 * 
+	 * @param medication The medication to check.
+	 * @return The quantity left on hand (the prescribed quantity if the medication was never stored).
+	 */
 	public long quantityLef(Medication medication) {
-		long daysBetween = ChronoUnit.DAYS.between(medication.getLastRefilled(), LocalDate.now());
-		 return medication.getQuantity() - (medication.getTimesPerDay() * daysBetween);
-
+		return medication.getOnHand() == null ? medication.getQuantity() : medication.getOnHand();
 	}
 
 }
@@ -0,0 +1,121 @@
+package prescription.tracker.medication;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import prescription.tracker.email.EmailDeliveryResult;
+import prescription.tracker.email.EmailService;
+import prescription.tracker.email.LowMedicationNotification;
+import prescription.tracker.user.User;
+
+/**
+ * Scheduled job that notifies users whose medications are running low.
+ *
+ * <p>Due medications are read from the database through the reminder date index in pages of
+ * {@value #PAGE_SIZE} rows, and the medications of each user are grouped so every user receives
+ * a single email per run.
+ *
+ * @author josemarin
+ */
+@Component
+public class MedicationReminderScheduler {
+
+	private static final Logger log = LoggerFactory.getLogger(MedicationReminderScheduler.class);
+
+	private static final int PAGE_SIZE = 500;
+
+	private MedicationRepository medicationRepo;
+	private EmailService emailService;
+
+	public MedicationReminderScheduler(MedicationRepository medicationRepo, EmailService emailService) {
+		this.medicationRepo = medicationRepo;
+		this.emailService = emailService;
+	}
+
+	/**
+	 * Sends the reminders that are due today.
+	 */
+	@Scheduled(cron = "${medtrack.reminder.cron:0 0 8 * * *}")
+	public void sendDueReminders() {
+		sendReminders(LocalDate.now());
+	}
+
+	/**
+	 * Sends one low medication notification to every user with at least one medication
+	 * whose reminder date is the given day. Notifications are handed to the email service
+	 * in batches so they share SMTP sessions.
+	 *
+	 * @param reminderDate The day the reminders are due.
+	 * @return The number of users successfully notified.
+	 */
+	public int sendReminders(LocalDate reminderDate) {
+
+		long lastUserId = 0;
+		long lastMedId = 0;
+		int notifiedUsers = 0;
+
+		User currentUser = null;
+		List<Medication> userMedications = new ArrayList<>();
+		List<LowMedicationNotification> notifications = new ArrayList<>();
+		List<Medication> page;
+
+		do {
+			page = medicationRepo.findDueReminders(reminderDate, lastUserId, lastMedId, PageRequest.of(0, PAGE_SIZE));
+
+			for(Medication medication : page) {
+				User user = medication.getUser();
+
+				// Rows are ordered by user, so a new user ID means the previous user is complete.
+				if(currentUser != null && currentUser.getUserId() != user.getUserId()) {
+					notifications.add(new LowMedicationNotification(currentUser.getEmail(), userMedications));
+					userMedications = new ArrayList<>();
+				}
+
+				currentUser = user;
+				userMedications.add(medication);
+				lastUserId = user.getUserId();
+				lastMedId = medication.getMedId();
+			}
+
+			if(notifications.size() >= PAGE_SIZE) {
+				notifiedUsers += send(notifications);
+				notifications = new ArrayList<>();
+			}
+
+		} while(page.size() == PAGE_SIZE);
+
+		if(!userMedications.isEmpty()) {
+			notifications.add(new LowMedicationNotification(currentUser.getEmail(), userMedications));
+		}
+
+		return notifiedUsers + send(notifications);
+	}
+
+	private int send(List<LowMedicationNotification> notifications) {
+
+		if(notifications.isEmpty()) {
+			return 0;
+		}
+
+		int sent = 0;
+
+		for(EmailDeliveryResult result : emailService.sendLowMedicationsNotifications(notifications)) {
+			if(result.sent()) {
+				sent++;
+			}
+			else {
+				log.warn("Could not send low medication reminder to {}: {}", result.recipient(), result.error());
+			}
+		}
+
+		return sent;
+	}
+
+}
@@ -1,22 +1,54 @@
 package prescription.tracker.medication;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import jakarta.persistence.QueryHint;
 
 /**
  * This interface defines the repository for managing Medication entities in the database.
  * It extends JpaRepository to inherit basic CRUD operations.
  * 
- * <p>The additional method {@link #findAllByUserId(Long)} allows retrieving medications by user ID.
+ * <p>The additional method {@link #findAllByUserId(Long)} allows retrieving medications by user ID,
+ * and {@link #findDueReminders(LocalDate, long, long, Pageable)} pages through the medications
+ * whose reminder is due on a given day.
  * 
  * @see JpaRepository
+ * @see MedicationRepositoryCustom
  * @see Medication
  * @author josemarin
  */
-public interface MedicationRepository extends JpaRepository<Medication, Long> {
+public interface MedicationRepository extends JpaRepository<Medication, Long>, MedicationRepositoryCustom {
+	
+	/**
+	 * Select clause projecting a medication row into a {@link MedicationView}. The owner's ID is
+	 * read from the foreign key column, so the users table is not joined.
+	 */
+	String SELECT_VIEW = "SELECT new prescription.tracker.medication.MedicationView(m.medId, m.name, m.dosage, "
+			+ "m.quantity, m.refills, m.timesPerDay, m.lastRefilled, m.reminderDays, m.reminderDate, m.user.userId, m.onHand, m.version) "
+			+ "FROM Medication m ";
+	
+	/**
+	 * Update clause overwriting every value of a medication with those of the {@code medication}
+	 * parameter and incrementing its version. The balance on hand is shifted by the change of the
+	 * prescribed quantity (never below zero); the right-hand side reads the stored quantity.
+	 */
+	String UPDATE_VALUES = "UPDATE Medication m SET m.name = :#{#medication.name}, m.dosage = :#{#medication.dosage}, "
+			+ "m.quantity = :#{#medication.quantity}, m.refills = :#{#medication.refills}, "
+			+ "m.timesPerDay = :#{#medication.timesPerDay}, m.lastRefilled = :#{#medication.lastRefilled}, "
+			+ "m.reminderDays = :#{#medication.reminderDays}, m.reminderDate = :#{#medication.reminderDate}, "
+			+ "m.onHand = CASE WHEN m.onHand + :#{#medication.quantity} - m.quantity > 0 "
+			+ "THEN m.onHand + :#{#medication.quantity} - m.quantity ELSE 0 END, "
+			+ "m.user = :#{#medication.user}, m.version = m.version + 1 ";
     
     /**
      * Retrieves a list of medications associated with a specific user by their user ID.
@@ -27,6 +59,188 @@ public interface MedicationRepository extends JpaRepository<Medication, Long> {
 	@Query("SELECT m FROM Medication m WHERE m.user.userId = :userId")
 	Optional<List<Medication>> findAllByUserId(Long userId);
 	
+	/**
+	 * Retrieves the view of a medication by its ID.
+	 * 
+	 * @param medId The unique ID of the medication.
+	 * @return An optional view of the medication.
+	 */
+	@Query(SELECT_VIEW + "WHERE m.medId = :medId")
+	Optional<MedicationView> findViewByMedId(Long medId);
+	
+	/**
+	 * Retrieves the views of the medications associated with a specific user, ordered by medication ID.
+	 * 
+	 * @param userId The unique identifier of the user whose medications are to be retrieved.
+	 * @return An optional list of the views of the user's medications.
+	 */
+	@Query(SELECT_VIEW + "WHERE m.user.userId = :userId ORDER BY m.medId")
+	Optional<List<MedicationView>> findAllViewsByUserId(Long userId);
+	
+	/**
+	 * Streams the views of the medications associated with a specific user, ordered by medication ID.
+	 * Rows are fetched from the database cursor in batches instead of being loaded at once,
+	 * so the stream must be consumed (and closed) inside a transaction.
+	 * 
+	 * @param userId The unique identifier of the user whose medications are to be streamed.
+	 * @return A stream of the views of the user's medications.
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+	@Query(SELECT_VIEW + "WHERE m.user.userId = :userId ORDER BY m.medId")
+	Stream<MedicationView> streamAllViewsByUserId(Long userId);
+	
+	/**
+	 * Retrieves the first page of a user's medications ordered by name.
+	 * 
+	 * @param userId   The unique identifier of the user.
+	 * @param pageable The page size to read; only the size is used.
+	 * @return The first page of medications.
+	 */
+	@Query(SELECT_VIEW + "WHERE m.user.userId = :userId ORDER BY m.name, m.medId")
+	List<MedicationView> findFirstPageOrderByName(Long userId, Pageable pageable);
+	
+	/**
+	 * Retrieves the page of a user's medications, ordered by name, that follows the row with
+	 * the given name and ID (keyset pagination).
+	 * 
+	 * @param userId   The unique identifier of the user.
+	 * @param name     The name of the last row of the previous page.
+	 * @param medId    The medication ID of the last row of the previous page.
+	 * @param pageable The page size to read; only the size is used.
+	 * @return The next page of medications.
+	 */
+	@Query(SELECT_VIEW + "WHERE m.user.userId = :userId "
+			+ "AND (m.name > :name OR (m.name = :name AND m.medId > :medId)) "
+			+ "ORDER BY m.name, m.medId")
+	List<MedicationView> findPageOrderByNameAfter(Long userId, String name, Long medId, Pageable pageable);
+	
+	/**
+	 * Retrieves the first page of a user's medications ordered by reminder date, with the
+	 * medications without a reminder date last.
+	 * 
+	 * @param userId   The unique identifier of the user.
+	 * @param pageable The page size to read; only the size is used.
+	 * @return The first page of medications.
+	 */
+	@Query(SELECT_VIEW + "WHERE m.user.userId = :userId ORDER BY m.reminderDate NULLS LAST, m.medId")
+	List<MedicationView> findFirstPageOrderByReminderDate(Long userId, Pageable pageable);
+	
+	/**
+	 * Retrieves the page of a user's medications, ordered by reminder date, that follows the row
+	 * with the given reminder date and ID (keyset pagination). Medications without a reminder
+	 * date come after every dated one.
+	 * 
+	 * @param userId       The unique identifier of the user.
+	 * @param reminderDate The reminder date of the last row of the previous page.
+	 * @param medId        The medication ID of the last row of the previous page.
+	 * @param pageable     The page size to read; only the size is used.
+	 * @return The next page of medications.
+	 */
+	@Query(SELECT_VIEW + "WHERE m.user.userId = :userId "
+			+ "AND (m.reminderDate > :reminderDate OR (m.reminderDate = :reminderDate AND m.medId > :medId) "
+			+ "OR m.reminderDate IS NULL) "
+			+ "ORDER BY m.reminderDate NULLS LAST, m.medId")
+	List<MedicationView> findPageOrderByReminderDateAfter(Long userId, LocalDate reminderDate, Long medId, Pageable pageable);
+	
+	/**
+	 * Retrieves the page of a user's medications without a reminder date that follows the given
+	 * medication ID. Used once the reminder date listing has reached its undated tail.
+	 * 
+	 * @param userId   The unique identifier of the user.
+	 * @param medId    The medication ID of the last row of the previous page.
+	 * @param pageable The page size to read; only the size is used.
+	 * @return The next page of medications.
+	 */
+	@Query(SELECT_VIEW + "WHERE m.user.userId = :userId AND m.reminderDate IS NULL AND m.medId > :medId "
+			+ "ORDER BY m.medId")
+	List<MedicationView> findUndatedPageAfter(Long userId, Long medId, Pageable pageable);
+	
+	/**
+	 * Overwrites the stored values of a medication with those of the given one in a single
+	 * statement, without loading the stored row first.
+	 * 
+	 * @param medication The medication holding the new values and the ID of the row to update.
+	 * @return The number of rows updated (0 if no medication has that ID).
+	 */
+	@Modifying
+	@Query(UPDATE_VALUES + "WHERE m.medId = :#{#medication.medId}")
+	int updateMedication(Medication medication);
+	
+	/**
+	 * Overwrites the stored values of a medication with those of the given one, provided the
+	 * stored row is still at the expected version (optimistic locking). The version check and
+	 * the write are one statement, so no row lock is held between reading and writing.
+	 * 
+	 * @param medication The medication holding the new values and the ID of the row to update.
+	 * @param version    The version the client last read.
+	 * @return The number of rows updated (0 if the medication does not exist or was modified since).
+	 */
+	@Modifying
+	@Query(UPDATE_VALUES + "WHERE m.medId = :#{#medication.medId} AND m.version = :version")
+	int updateMedicationIfVersion(Medication medication, long version);
+	
+	/**
+	 * Overwrites the stored values of a medication with those of the given one in a single
+	 * statement, provided the stored row already belongs to the medication's owner. A write that
+	 * does not move the medication therefore only touches the owner it names.
+	 * 
+	 * @param medication The medication holding the new values, the ID of the row to update and its owner.
+	 * @return The number of rows updated (0 if the medication does not exist or belongs to another user).
+	 */
+	@Modifying
+	@Query(UPDATE_VALUES + "WHERE m.medId = :#{#medication.medId} AND m.user = :#{#medication.user}")
+	int updateOwnedMedication(Medication medication);
+	
+	/**
+	 * Overwrites the stored values of a medication with those of the given one, provided the
+	 * stored row already belongs to the medication's owner and is still at the expected version.
+	 * 
+	 * @param medication The medication holding the new values, the ID of the row to update and its owner.
+	 * @param version    The version the client last read.
+	 * @return The number of rows updated (0 if the medication does not exist, belongs to another
+	 *         user or was modified since).
+	 */
+	@Modifying
+	@Query(UPDATE_VALUES + "WHERE m.medId = :#{#medication.medId} AND m.user = :#{#medication.user} "
+			+ "AND m.version = :version")
+	int updateOwnedMedicationIfVersion(Medication medication, long version);
+	
+	/**
+	 * Adds a signed amount to the balance on hand of a medication in a single statement, unless
+	 * it would leave the balance negative. The row stays locked until the transaction ends, so
+	 * concurrent adjustments of the same medication are applied one after the other.
+	 * 
+	 * <p>The same statement re-projects the reminder date from the new balance: the day the
+	 * balance, taken {@code timesPerDay} at a time, is down to {@code reminderDays} days of doses.
+	 * Doses taken on schedule leave that day unchanged. When the balance is already that low, a
+	 * reminder that has not been sent yet is moved to tomorrow so the daily sweep still sends it,
+	 * and a reminder that was already sent is not sent again until a refill moves the day forward.
+	 * 
+	 * @param medId The unique ID of the medication.
+	 * @param delta The amount to add (negative for doses).
+	 * @return The number of rows updated (0 if the medication does not exist or has too little on hand).
+	 */
+	@Modifying
+	@Query("UPDATE Medication m SET m.onHand = m.onHand + :delta, m.version = m.version + 1, "
+			+ "m.reminderDate = CASE "
+			+ "WHEN m.timesPerDay = 0 THEN m.reminderDate "
+			+ "WHEN m.onHand + :delta - m.timesPerDay * m.reminderDays >= m.timesPerDay "
+			+ "THEN current_date + ((m.onHand + :delta - m.timesPerDay * m.reminderDays) / m.timesPerDay) day "
+			+ "WHEN m.reminderDate > current_date THEN current_date + 1 day "
+			+ "ELSE m.reminderDate END "
+			+ "WHERE m.medId = :medId AND m.onHand + :delta >= 0")
+	int adjustOnHand(Long medId, int delta);
+	
+	/**
+	 * Retrieves the balance on hand of a medication.
+	 * 
+	 * @param medId The unique ID of the medication.
+	 * @return The balance on hand, or empty if the medication does not exist.
+	 */
+	@Query("SELECT m.onHand FROM Medication m WHERE m.medId = :medId")
+	Optional<Integer> findOnHandByMedId(Long medId);
+	
+	
 	/**
 	 * Deletes all medications associated with a specific user by their user ID.
 	 * 
@@ -35,4 +249,22 @@ public interface MedicationRepository extends JpaRepository<Medication, Long> {
 	@Modifying
 	@Query("DELETE FROM Medication m WHERE m.user.userId =:userId")
 	void deleteAllByUserId(Long userId);
+	
+	/**
+	 * Retrieves a page of medications whose reminder date falls on the given day, together with
+	 * their (enabled) owners. Rows are ordered by user ID and medication ID so all of a user's
+	 * medications are contiguous, and the next page is requested with the keys of the last row
+	 * returned (keyset pagination) instead of an offset.
+	 * 
+	 * @param reminderDate The day the reminders are due.
+	 * @param lastUserId   The user ID of the last row of the previous page, or 0 for the first page.
+	 * @param lastMedId    The medication ID of the last row of the previous page, or 0 for the first page.
+	 * @param pageable     The page size to read; only the size is used.
+	 * @return The next page of due medications.
+	 */
+	@Query("SELECT m FROM Medication m JOIN FETCH m.user u "
+			+ "WHERE m.reminderDate = :reminderDate AND u.isEnabled = true "
+			+ "AND (u.userId > :lastUserId OR (u.userId = :lastUserId AND m.medId > :lastMedId)) "
+			+ "ORDER BY u.userId, m.medId")
+	List<Medication> findDueReminders(LocalDate reminderDate, long lastUserId, long lastMedId, Pageable pageable);
 }
@@ -0,0 +1,24 @@
+package prescription.tracker.medication;
+
+import java.util.List;
+
+/**
+ * Medication repository operations written in SQL specific to the database in use, for writes
+ * that JPQL cannot express in a single statement.
+ *
+ * @see MedicationRepository
+ * @author josemarin
+ */
+public interface MedicationRepositoryCustom {
+
+	/**
+	 * Deletes a medication by its ID in a single statement that also returns the owner of the
+	 * deleted row, so the caller can evict the owner's cached medication list without reading it first.
+	 *
+	 * @param medId The unique ID of the medication to delete.
+	 * @return The owner ID of the deleted medication (a null element if it had no owner), or an
+	 *         empty list if no medication has that ID.
+	 */
+	List<Long> deleteByMedIdReturningOwner(Long medId);
+
+}
@@ -0,0 +1,48 @@
+package prescription.tracker.medication;
+
+import java.util.List;
+
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Implementation of {@link MedicationRepositoryCustom}, picked up by Spring Data for
+ * {@link MedicationRepository}. The SQL is chosen once from the Hibernate dialect.
+ *
+ * @author josemarin
+ */
+public class MedicationRepositoryCustomImpl implements MedicationRepositoryCustom {
+
+	// PostgreSQL returns the deleted row from the DELETE itself; H2 has no RETURNING clause but
+	// exposes the deleted rows as the OLD TABLE of the statement.
+	private static final String DELETE_RETURNING_OWNER_POSTGRESQL =
+			"DELETE FROM medication WHERE med_id = :medId RETURNING user_id";
+	private static final String DELETE_RETURNING_OWNER_H2 =
+			"SELECT user_id FROM OLD TABLE (DELETE FROM medication WHERE med_id = :medId)";
+
+	private EntityManager entityManager;
+	private String deleteReturningOwner;
+
+	public MedicationRepositoryCustomImpl(EntityManager entityManager) {
+		this.entityManager = entityManager;
+
+		boolean h2 = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+				.getJdbcServices().getDialect() instanceof H2Dialect;
+		this.deleteReturningOwner = h2 ? DELETE_RETURNING_OWNER_H2 : DELETE_RETURNING_OWNER_POSTGRESQL;
+	}
+
+	@Override
+	public List<Long> deleteByMedIdReturningOwner(Long medId) {
+
+		List<?> owners = entityManager.createNativeQuery(deleteReturningOwner)
+				.setParameter("medId", medId)
+				.getResultList();
+
+		return owners.stream()
+				.map(owner -> owner == null ? null : ((Number) owner).longValue())
+				.toList();
+	}
+
+}
@@ -1,56 +1,89 @@
 package prescription.tracker.medication;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import io.micrometer.core.annotation.Timed;
+import prescription.tracker.configuration.CacheConfiguration;
+import prescription.tracker.configuration.MetricsConfiguration;
 import prescription.tracker.exception.DuplicateMedicationException;
+import prescription.tracker.exception.InvalidPageRequestException;
 import prescription.tracker.exception.MedicationNotFoundException;
+import prescription.tracker.exception.MedicationVersionConflictException;
+import prescription.tracker.exception.UserNotFoundException;
 
 /**
  * Service class responsible for managing medication data in the MedTrack application.
  * It provides methods to add, retrieve, delete, and update medication information.
  *
+ * <p>Single medications and users' medication lists are served from the lookup caches; every
+ * write evicts the entries it makes stale.
+ *
  * @author josemarin
  */
 @Service
+@Timed(MetricsConfiguration.SERVICE_TIMER)
 public class MedicationService {
 	
+	private static final int MAX_PAGE_SIZE = 100;
+	
 	private MedicationRepository medicationRepo;
+	private MedicationCaches medicationCaches;
 	
 	
-	public MedicationService(MedicationRepository medicationRepo) {
+	public MedicationService(MedicationRepository medicationRepo, MedicationCaches medicationCaches) {
 		this.medicationRepo = medicationRepo;
+		this.medicationCaches = medicationCaches;
 	}
 	
 	/**
-	 * Adds a new medication to the system.
+	 * Adds a new medication to the system. The medication is inserted directly; IDs come from
+	 * the medication sequence, so no lookup is needed to tell whether it already exists.
 	 * @param medication The medication to be added.
-	 * @throws DuplicateMedicationException if a medication with the same ID already exists.
+	 * @throws DuplicateMedicationException if the medication already has an ID, i.e. it was added before.
+	 * @throws UserNotFoundException if the medication's owner does not exist.
 	 */
 	@Transactional
 	public void addMedication(Medication medication) {
 		
-		boolean medicationExists = medicationRepo.findById(medication.getMedId()).isPresent();
-		
-		if(medicationExists) {
+		if(medication.getMedId() != null) {
 			throw new DuplicateMedicationException("Medication with ID: " + medication.getMedId() + " already exists.");
 		}
 		
-		medicationRepo.save(medication);
+		try {
+			// Flushing here makes a violated constraint surface as an exception of this call.
+			medicationRepo.saveAndFlush(medication);
+		}
+		catch(DataIntegrityViolationException ex) {
+			// The owner's foreign key is the only constraint a new medication can violate.
+			if(medication.getUser() == null) {
+				throw ex;
+			}
+			throw new UserNotFoundException("User with ID: " + medication.getUser().getUserId() + " not found.");
+		}
+		
+		medicationCaches.evictUserMedications(ownerId(medication));
 	}
 
 	/**
 	 * Retrieves medication details by its unique ID.
 	 * 
 	 * @param medId The unique ID of the medication to retrieve.
-	 * @return The retrieved medication.
+	 * @return The view of the retrieved medication.
 	 * @throws MedicationNotFoundException if the medication with the specified ID is not found.
 	 */
-	public Medication getMedication(Long medId) {
+	@Cacheable(cacheNames = CacheConfiguration.MEDICATIONS, key = "#medId")
+	public MedicationView getMedication(Long medId) {
 		// Checks if the medication exists and throws a medication not found exception if it doesn't.
-		return medicationRepo.findById(medId).orElseThrow(() -> 
+		return medicationRepo.findViewByMedId(medId).orElseThrow(() -> 
 			new MedicationNotFoundException("Medication with ID: " + medId + " not found.")
 		);
 	}
@@ -59,56 +92,188 @@ public class MedicationService {
 	 * Retrieves a list of medications associated with a specific user by their user ID.
 	 * 
 	 * @param userId The unique identifier of the user whose medications are to be retrieved.
-	 * @return A list of medications associated with the specified user.
+	 * @return A list of the views of the medications associated with the specified user.
 	 * @throws MedicationNotFoundException If no medications are found for the given user ID.
 	 */
-	public List<Medication> getUserMedication(Long userId){
-		return medicationRepo.findAllByUserId(userId).orElseThrow(()-> 
+	@Cacheable(cacheNames = CacheConfiguration.USER_MEDICATIONS, key = "#userId")
+	public List<MedicationView> getUserMedication(Long userId){
+		return medicationRepo.findAllViewsByUserId(userId).orElseThrow(()-> 
 			new MedicationNotFoundException("Medication with user ID: " + userId + " not found.")
 			);
 	}
 
 	/**
-	 * Deletes a medication by its ID.
+	 * Retrieves one page of a user's medications in the given order. Pages are located with the
+	 * keys of the previous page's last row rather than an offset, so every page costs the same
+	 * as the first one.
+	 * 
+	 * @param userId The unique identifier of the user whose medications are to be retrieved.
+	 * @param sort   The order of the listing.
+	 * @param size   The maximum number of medications in the page.
+	 * @param cursor The cursor returned with the previous page, or null for the first page.
+	 * @return The page, with the cursor of the next page if there is one.
+	 * @throws InvalidPageRequestException if the size is out of range or the cursor is invalid
+	 *                                     or belongs to a listing in another order.
+	 */
+	public MedicationPage getUserMedicationPage(Long userId, MedicationSort sort, int size, String cursor) {
+		
+		if(size < 1 || size > MAX_PAGE_SIZE) {
+			throw new InvalidPageRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+		}
+		
+		// One extra row tells whether there is a next page without a count query.
+		Pageable limit = PageRequest.of(0, size + 1);
+		List<MedicationView> rows;
+		
+		if(cursor == null) {
+			rows = sort == MedicationSort.NAME
+					? medicationRepo.findFirstPageOrderByName(userId, limit)
+					: medicationRepo.findFirstPageOrderByReminderDate(userId, limit);
+		}
+		else {
+			MedicationCursor after = MedicationCursor.decode(cursor);
+			
+			if(after.sort() != sort) {
+				throw new InvalidPageRequestException("Cursor does not belong to a listing sorted by " + sort.getParameter() + ".");
+			}
+			
+			if(sort == MedicationSort.NAME) {
+				rows = medicationRepo.findPageOrderByNameAfter(userId, after.sortValue(), after.medId(), limit);
+			}
+			else if(after.reminderDate() != null) {
+				rows = medicationRepo.findPageOrderByReminderDateAfter(userId, after.reminderDate(), after.medId(), limit);
+			}
+			else {
+				rows = medicationRepo.findUndatedPageAfter(userId, after.medId(), limit);
+			}
+		}
+		
+		if(rows.size() <= size) {
+			return new MedicationPage(rows, null);
+		}
+		
+		List<MedicationView> page = rows.subList(0, size);
+		return new MedicationPage(page, MedicationCursor.after(sort, page.get(size - 1)).encode());
+	}
+	
+	/**
+	 * Streams the medications associated with a specific user to the given consumer, one at a time.
+	 * The views are not managed by the persistence context, so memory use does not grow with the
+	 * number of medications the user has.
+	 * 
+	 * @param userId   The unique identifier of the user whose medications are to be streamed.
+	 * @param consumer The consumer receiving each medication.
+	 */
+	@Transactional(readOnly = true)
+	public void streamUserMedications(Long userId, Consumer<MedicationView> consumer) {
+		
+		try(Stream<MedicationView> medications = medicationRepo.streamAllViewsByUserId(userId)) {
+			medications.forEach(consumer);
+		}
+	}
+
+	/**
+	 * Deletes a medication by its ID with a single DELETE statement, which also returns the owner
+	 * whose cached medication list it evicts.
 	 * 
 	 * @param medId The unique ID of the medication to delete.
-	 * @return The deleted medication.
 	 * @throws MedicationNotFoundException if the medication with the specified ID is not found.
 	 */
 	@Transactional
-	public Medication deleteMedication(Long medId) {
-		Medication med = medicationRepo.findById(medId).orElseThrow(() -> 
-			new MedicationNotFoundException("Medication with ID: " + medId + " not found.")
-		);
+	public void deleteMedication(Long medId) {
+		
+		List<Long> owners = medicationRepo.deleteByMedIdReturningOwner(medId);
 		
-		medicationRepo.deleteById(medId);
-		return med;
+		if(owners.isEmpty()) {
+			throw new MedicationNotFoundException("Medication with ID: " + medId + " not found.");
+		}
+		
+		medicationCaches.evict(medId, owners.get(0));
 	}
 
 	/**
-	 * Updates an existing medication.
+	 * Updates an existing medication with a single UPDATE statement, without loading it first.
+	 * When an expected version is given, the update only applies if the medication is still at
+	 * that version, so a client cannot overwrite changes it has not seen. No lock is taken: a
+	 * conflicting client gets the current version back and retries against it.
+	 * 
+	 * <p>The update is guarded by the owner it names, so the owner whose cached list it evicts is
+	 * known without a lookup. Only an update that moves the medication to another user reads the
+	 * previous owner, and writes again.
+	 * 
+	 * @param medication      The updated medication details.
+	 * @param expectedVersion The version the client last read, or null to update unconditionally.
+	 * @return The view of the updated medication; its version is only known for conditional updates.
+	 * @throws MedicationNotFoundException if the medication with the specified ID is not found.
+	 * @throws MedicationVersionConflictException if the medication is no longer at the expected version.
+	 */
+	@Transactional
+	public MedicationView updateMedication(Medication medication, Long expectedVersion) {
+		
+		// Rebuilding through the constructor validates every value and derives the reminder date
+		// from the complete set of values, whatever order the request set them in.
+		Medication med = new Medication(medication.getMedId(), medication.getName(), medication.getDosage(),
+				medication.getQuantity(), medication.getRefills(), medication.getTimesPerDay(),
+				medication.getLastRefilled(), medication.getReminderDays(), medication.getUser());
+		
+		int updated = expectedVersion == null ? medicationRepo.updateOwnedMedication(med)
+				: medicationRepo.updateOwnedMedicationIfVersion(med, expectedVersion);
+		
+		if(updated == 0) {
+			// Only the failure path reads the row, to tell a missing medication or a stale version
+			// from a medication that is moving to another user.
+			MedicationView previous = currentView(med.getMedId(), expectedVersion);
+			
+			int moved = expectedVersion == null ? medicationRepo.updateMedication(med)
+					: medicationRepo.updateMedicationIfVersion(med, expectedVersion);
+			
+			if(moved == 0) {
+				// Written or deleted by another client since it was read.
+				MedicationView current = currentView(med.getMedId(), expectedVersion);
+				throw new MedicationVersionConflictException("Medication with ID: " + med.getMedId()
+						+ " was modified; current version is " + current.version() + ".", current.version());
+			}
+			
+			medicationCaches.evictUserMedications(previous.userId());
+		}
+		
+		medicationCaches.evict(med.getMedId(), ownerId(med));
+		
+		MedicationView view = MedicationView.from(med);
+		return expectedVersion == null ? view : view.withVersion(expectedVersion + 1);
+	}
+	
+	/**
+	 * Applies a partial update to a medication. The medication is loaded and only the values in the
+	 * patch are changed on it, so the UPDATE flushed for it writes just the columns that changed
+	 * and is guarded by the version it was read at.
 	 * 
-	 * @param medication The updated medication details.
-	 * @return The updated medication.
+	 * @param medId           The unique ID of the medication to update.
+	 * @param patch           The values to change.
+	 * @param expectedVersion The version the client last read, or null to patch whatever version is stored.
+	 * @return The view of the updated medication.
 	 * @throws MedicationNotFoundException if the medication with the specified ID is not found.
+	 * @throws MedicationVersionConflictException if the medication is no longer at the expected version.
 	 */
 	@Transactional
-	public Medication updateMedication(Medication medication) {
-		Medication med = medicationRepo.findById(medication.getMedId()).orElseThrow(() -> 
-			new MedicationNotFoundException("Medication with ID: " + medication.getMedId() + " not found.")
+	public MedicationView patchMedication(Long medId, MedicationPatch patch, Long expectedVersion) {
+		
+		Medication med = medicationRepo.findById(medId).orElseThrow(() -> 
+			new MedicationNotFoundException("Medication with ID: " + medId + " not found.")
 		);
 		
-		// Update medication properties
-		med.setName(medication.getName());
-		med.setRefills(medication.getRefills());
-		med.setDosage(medication.getDosage());
-		med.setLastRefilled(medication.getLastRefilled());
-		med.setTimesPerDay(medication.getTimesPerDay());
-		med.setQuantity(medication.getQuantity());
-		med.setUser(medication.getUser());
-		medicationRepo.save(med);
-		
-		return med;
+		if(expectedVersion != null && !expectedVersion.equals(med.getVersion())) {
+			throw new MedicationVersionConflictException("Medication with ID: " + medId
+					+ " was modified; current version is " + med.getVersion() + ".", med.getVersion());
+		}
+		
+		med.applyPatch(patch);
+		
+		// Flushing now gives the view the version the update produced.
+		medicationRepo.flush();
+		medicationCaches.evict(medId, ownerId(med));
+		
+		return MedicationView.from(med);
 	}
 	
 	/**
@@ -119,6 +284,36 @@ public class MedicationService {
 	@Transactional
 	public void deleteUserMedications(Long userId) {
 		
+		medicationRepo.findAllViewsByUserId(userId).ifPresent(medications -> 
+			medications.forEach(medication -> medicationCaches.evict(medication.medId(), userId))
+		);
+		medicationCaches.evictUserMedications(userId);
+		
 		medicationRepo.deleteAllByUserId(userId);
 	}
+	
+	/**
+	 * Reads the current view of a medication for a write that did not apply.
+	 * 
+	 * @throws MedicationNotFoundException if the medication with the specified ID is not found.
+	 * @throws MedicationVersionConflictException if the medication is no longer at the expected version.
+	 */
+	private MedicationView currentView(Long medId, Long expectedVersion) {
+		
+		MedicationView current = medicationRepo.findViewByMedId(medId).orElseThrow(() -> 
+			new MedicationNotFoundException("Medication with ID: " + medId + " not found.")
+		);
+		
+		if(expectedVersion != null && !expectedVersion.equals(current.version())) {
+			throw new MedicationVersionConflictException("Medication with ID: " + medId
+					+ " was modified; current version is " + current.version() + ".", current.version());
+		}
+		
+		return current;
+	}
+	
+	private static Long ownerId(Medication medication) {
+		return medication.getUser() == null ? null : medication.getUser().getUserId();
+	}
+	
 }
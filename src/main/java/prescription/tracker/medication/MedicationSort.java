@@ -0,0 +1,49 @@
+package prescription.tracker.medication;
+
+import prescription.tracker.exception.InvalidPageRequestException;
+
+/**
+ * Orders supported by the paginated medication listing. Ties are always broken by medication ID,
+ * which makes every order total and lets a page be resumed from the keys of its last row.
+ * 
+ * @author josemarin
+ */
+public enum MedicationSort {
+	
+	NAME("name"),
+	REMINDER_DATE("reminderDate");
+	
+	private final String parameter;
+	
+	MedicationSort(String parameter) {
+		this.parameter = parameter;
+	}
+	
+	/**
+	 * Returns the name used for this order in request parameters.
+	 * 
+	 * @return The request parameter value.
+	 */
+	public String getParameter() {
+		return parameter;
+	}
+	
+	/**
+	 * Resolves the order named by a request parameter.
+	 * 
+	 * @param parameter The request parameter value, e.g. "name" or "reminderDate".
+	 * @return The matching order.
+	 * @throws InvalidPageRequestException if no order has that name.
+	 */
+	public static MedicationSort fromParameter(String parameter) {
+		
+		for(MedicationSort sort : values()) {
+			if(sort.parameter.equals(parameter)) {
+				return sort;
+			}
+		}
+		
+		throw new InvalidPageRequestException("Unsupported sort: " + parameter + ". Use name or reminderDate.");
+	}
+
+}
@@ -0,0 +1,55 @@
+package prescription.tracker.medication;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of a {@link Medication} returned by the API. It carries the owner's ID
+ * instead of the owner entity, so serializing it never touches the user or its medication list.
+ * 
+ * @param medId        Unique identifier for the medication.
+ * @param name         Name of the medication.
+ * @param dosage       Dosage of the medication.
+ * @param quantity     Total quantity of the medication.
+ * @param refills      Number of refills available for the medication.
+ * @param timesPerDay  Frequency of medication intake daily.
+ * @param lastRefilled Date when the medication was last refilled.
+ * @param reminderDays Number of days before running out to trigger a reminder.
+ * @param reminderDate Date when the refill reminder is sent.
+ * @param userId       The ID of the user the medication belongs to.
+ * @param onHand       The quantity left on hand, maintained by the dose and refill ledger.
+ * @param version      The version of the medication, used as its entity tag.
+ * 
+ * @author josemarin
+ */
+public record MedicationView(Long medId, String name, double dosage, int quantity, int refills, int timesPerDay,
+		LocalDate lastRefilled, int reminderDays, LocalDate reminderDate, Long userId, Integer onHand,
+		Long version) {
+	
+	/**
+	 * Creates the view of an already loaded medication.
+	 * 
+	 * @param medication The medication to project.
+	 * @return The medication's view.
+	 */
+	public static MedicationView from(Medication medication) {
+		
+		Long userId = medication.getUser() == null ? null : medication.getUser().getUserId();
+		
+		return new MedicationView(medication.getMedId(), medication.getName(), medication.getDosage(),
+				medication.getQuantity(), medication.getRefills(), medication.getTimesPerDay(),
+				medication.getLastRefilled(), medication.getReminderDays(), medication.getReminderDate(), userId,
+				medication.getOnHand(), medication.getVersion());
+	}
+	
+	/**
+	 * Returns a copy of this view with another version.
+	 * 
+	 * @param version The version of the copy.
+	 * @return The copy.
+	 */
+	MedicationView withVersion(Long version) {
+		return new MedicationView(medId, name, dosage, quantity, refills, timesPerDay, lastRefilled,
+				reminderDays, reminderDate, userId, onHand, version);
+	}
+
+}
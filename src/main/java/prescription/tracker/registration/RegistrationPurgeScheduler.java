@@ -0,0 +1,111 @@
+package prescription.tracker.registration;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import prescription.tracker.medication.MedicationCaches;
+import prescription.tracker.user.UserCaches;
+
+/**
+ * Scheduled job that deletes accounts that were never confirmed and whose confirmation link
+ * has expired, so abandoned and bot signups do not pile up in the users table.
+ *
+ * <p>Expired accounts are read through the expiry index and deleted in batches, each in its own
+ * short transaction, with a pause between batches so the purge never holds locks for long or
+ * crowds out regular traffic.
+ *
+ * @author josemarin
+ */
+@Component
+public class RegistrationPurgeScheduler {
+
+	private static final Logger log = LoggerFactory.getLogger(RegistrationPurgeScheduler.class);
+
+	private RegistrationRepository registrationRepository;
+	private TransactionTemplate transactionTemplate;
+	private MedicationCaches medicationCaches;
+	private UserCaches userCaches;
+	private int batchSize;
+	private Duration pause;
+
+	public RegistrationPurgeScheduler(RegistrationRepository registrationRepository,
+			TransactionTemplate transactionTemplate, MedicationCaches medicationCaches, UserCaches userCaches,
+			@Value("${medtrack.registration.purge.batch-size:500}") int batchSize,
+			@Value("${medtrack.registration.purge.pause:100ms}") Duration pause) {
+		this.registrationRepository = registrationRepository;
+		this.transactionTemplate = transactionTemplate;
+		this.medicationCaches = medicationCaches;
+		this.userCaches = userCaches;
+		this.batchSize = batchSize;
+		this.pause = pause;
+	}
+
+	/**
+	 * Purges the registrations that have expired by now.
+	 */
+	@Scheduled(cron = "${medtrack.registration.purge.cron:0 15 * * * *}")
+	public void purgeExpiredRegistrations() {
+
+		int purged = purge(LocalDateTime.now());
+
+		if(purged > 0) {
+			log.info("Purged {} expired registrations", purged);
+		}
+	}
+
+	/**
+	 * Deletes, batch by batch, every unconfirmed account whose confirmation token expired
+	 * before the given time, together with any medications it holds.
+	 *
+	 * @param now The time the tokens are compared with.
+	 * @return The number of accounts deleted.
+	 */
+	public int purge(LocalDateTime now) {
+
+		int purged = 0;
+
+		while(true) {
+			List<Long> userIds = registrationRepository.findExpiredRegistrationIds(now, PageRequest.of(0, batchSize));
+
+			if(userIds.isEmpty()) {
+				return purged;
+			}
+
+			purged += transactionTemplate.execute(status -> {
+				registrationRepository.deleteExpiredRegistrationMedications(userIds, now);
+				return registrationRepository.deleteExpiredRegistrations(userIds, now);
+			});
+
+			userIds.forEach(medicationCaches::evictUserMedications);
+			userIds.forEach(userCaches::evict);
+
+			// A short batch was the last one.
+			if(userIds.size() < batchSize || !pause()) {
+				return purged;
+			}
+		}
+	}
+
+	private boolean pause() {
+
+		try {
+			Thread.sleep(pause.toMillis());
+			return true;
+		}
+		catch(InterruptedException ex) {
+			// Shutting down: the remaining accounts are purged by the next run.
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+}
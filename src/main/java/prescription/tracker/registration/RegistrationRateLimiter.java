@@ -0,0 +1,65 @@
+package prescription.tracker.registration;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import prescription.tracker.exception.RateLimitExceededException;
+import prescription.tracker.util.RateLimiter;
+
+/**
+ * Throttles sign-ups per client address and per email domain.
+ *
+ * <p>A registration costs a password hash, a database insert and a confirmation email, so it is
+ * checked here before any of that work starts. The per-address limit stops a single client; the
+ * looser per-domain limit stops floods spread over many addresses using throwaway domains.
+ *
+ * @author josemarin
+ */
+@Component
+public class RegistrationRateLimiter {
+
+	private RateLimiter addressLimiter;
+	private RateLimiter domainLimiter;
+
+	public RegistrationRateLimiter(
+			@Value("${medtrack.registration.rate-limit.address.capacity:5}") int addressCapacity,
+			@Value("${medtrack.registration.rate-limit.address.period:10m}") Duration addressPeriod,
+			@Value("${medtrack.registration.rate-limit.domain.capacity:100}") int domainCapacity,
+			@Value("${medtrack.registration.rate-limit.domain.period:1m}") Duration domainPeriod,
+			@Value("${medtrack.registration.rate-limit.max-keys:100000}") long maxKeys) {
+		this.addressLimiter = new RateLimiter(addressCapacity, addressPeriod, maxKeys);
+		this.domainLimiter = new RateLimiter(domainCapacity, domainPeriod, maxKeys);
+	}
+
+	/**
+	 * Takes one registration permit for the client and the email's domain.
+	 *
+	 * @param clientAddress The address the request came from.
+	 * @param email         The email being registered.
+	 * @throws RateLimitExceededException if either limit is exhausted.
+	 */
+	public void acquire(String clientAddress, String email) {
+
+		check(addressLimiter.tryAcquire(clientAddress), "Too many registrations from this address.");
+		check(domainLimiter.tryAcquire(domain(email)), "Too many registrations for this email domain.");
+	}
+
+	private static void check(long waitNanos, String message) {
+
+		if(waitNanos > 0) {
+			long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+			throw new RateLimitExceededException(message, retryAfterSeconds);
+		}
+	}
+
+	private static String domain(String email) {
+
+		int at = email == null ? -1 : email.lastIndexOf('@');
+		return at < 0 ? "" : email.substring(at + 1).toLowerCase(Locale.ROOT);
+	}
+
+}
@@ -1,15 +1,42 @@
 package prescription.tracker.registration;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 import prescription.tracker.user.User;
 
 public interface RegistrationRepository extends JpaRepository<User, Long>{
 	
+	// Condition shared by the purge queries: unconfirmed, and the confirmation link has expired.
+	String EXPIRED_REGISTRATION = "u.isEnabled = false AND u.confirmationTokenExpiration < :now";
+	
+	// Served by the unique index on lower(email).
+	@Query("SELECT u FROM User u WHERE lower(u.email) = lower(:email)")
 	Optional<User> findUserByEmail(String email);
 	
-	Optional<User> findUserByConfirmationToken(String confirmationToken);
+	// Served by idx_users_confirmation_token; a token past its expiry is not found.
+	Optional<User> findUserByConfirmationTokenAndConfirmationTokenExpirationAfter(String confirmationToken,
+			LocalDateTime now);
+	
+	// One batch of expired registrations, oldest first; served by idx_users_confirmation_token_expiration.
+	@Query("SELECT u.userId FROM User u WHERE " + EXPIRED_REGISTRATION + " ORDER BY u.confirmationTokenExpiration")
+	List<Long> findExpiredRegistrationIds(LocalDateTime now, Pageable pageable);
+	
+	// The condition is checked again, so an account confirmed since the batch was read is kept.
+	@Modifying
+	@Query("DELETE FROM Medication m WHERE m.user.userId IN "
+			+ "(SELECT u.userId FROM User u WHERE u.userId IN :userIds AND " + EXPIRED_REGISTRATION + ")")
+	int deleteExpiredRegistrationMedications(Collection<Long> userIds, LocalDateTime now);
+	
+	@Modifying
+	@Query("DELETE FROM User u WHERE u.userId IN :userIds AND " + EXPIRED_REGISTRATION)
+	int deleteExpiredRegistrations(Collection<Long> userIds, LocalDateTime now);
 
 }
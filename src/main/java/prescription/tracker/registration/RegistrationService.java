@@ -1,41 +1,78 @@
 package prescription.tracker.registration;
 
+import java.time.LocalDateTime;
+import java.util.Optional;
+
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import io.micrometer.core.annotation.Timed;
+import prescription.tracker.configuration.CacheConfiguration;
+import prescription.tracker.configuration.MetricsConfiguration;
 import prescription.tracker.email.EmailService;
 import prescription.tracker.exception.DuplicateUserException;
 import prescription.tracker.exception.UserNotFoundException;
+import prescription.tracker.user.PasswordHasher;
 import prescription.tracker.user.User;
+import prescription.tracker.user.UserCaches;
 import prescription.tracker.util.Token;
 import prescription.tracker.util.TokenGenerator;
 
 @Service
+@Timed(MetricsConfiguration.SERVICE_TIMER)
 public class RegistrationService {
 	
 	private RegistrationRepository registrationRepository;
-	private PasswordEncoder passwordEncoder;
 	@Autowired
 	private EmailService emailService;
+	private UserCaches userCaches;
 	
-	public RegistrationService(RegistrationRepository registrationRepository, 
-			PasswordEncoder passwordEncoder, EmailService emailService) {
+	public RegistrationService(RegistrationRepository registrationRepository, EmailService emailService,
+			UserCaches userCaches) {
 		this.registrationRepository = registrationRepository;
-		this.passwordEncoder = passwordEncoder;
+		this.userCaches = userCaches;
 		
 	}
 	/**
-	 * Registers a new user.
+	 * Checks that an email can be registered, so a request for a taken email fails before its
+	 * password is hashed. {@link #register(User, String)} checks again, and the unique email
+	 * index rejects a registration that races past both checks.
+	 * @param email The email to register.
+	 * @throws DuplicateUserException if the email is already taken.
+	 */
+	public void checkEmailAvailable(String email) {
+		registrationRepository.findUserByEmail(email).ifPresent(existing -> {
+			if(!isExpiredRegistration(existing, LocalDateTime.now())) {
+				throw new DuplicateUserException("Email " + email + " already taken.");
+			}
+		});
+	}
+	
+	/**
+	 * Registers a new user. The confirmation email is queued in the same transaction as
+	 * the new user, so the request does not wait on the SMTP server.
 	 * @param user The user to register.
+	 * @param encodedPassword The hash of the user's password (see {@link PasswordHasher}).
 	 * @throws DuplicateUserException if the email is already taken.
 	 */
-	public User register(User user) {
-		if(registrationRepository.findUserByEmail(user.getEmail()).isPresent()) {
-			throw new DuplicateUserException("Email " + user.getEmail() + " already taken.");
+	@Transactional
+	public User register(User user, String encodedPassword) {
+		Optional<User> existing = registrationRepository.findUserByEmail(user.getEmail());
+		
+		if(existing.isPresent()) {
+			if(!isExpiredRegistration(existing.get(), LocalDateTime.now())) {
+				throw new DuplicateUserException("Email " + user.getEmail() + " already taken.");
+			}
+			
+			// An unconfirmed account whose link expired no longer holds the email. The delete is
+			// flushed first, otherwise the new row would hit the unique email index.
+			registrationRepository.delete(existing.get());
+			registrationRepository.flush();
+			userCaches.evict(existing.get().getUserId());
 		}
 		
-		String encodedPassword = passwordEncoder.encode(user.getPassword());
 		user.setPassword(encodedPassword);
 		
 		Token token = TokenGenerator.generateToken();
@@ -44,14 +81,22 @@ public class RegistrationService {
 		
 		registrationRepository.save(user);
 		
-		emailService.sendConfirmationEmail(user.getEmail(), token.getValue());
+		emailService.queueConfirmationEmail(user.getEmail(), token.getValue());
 		return user;
 	}
 	
+	/**
+	 * Confirms the account a confirmation link was sent to.
+	 * @param confirmationToken The token of the link.
+	 * @throws UserNotFoundException if no account has that token or the token expired.
+	 */
+	// The cached view of the account would otherwise keep it disabled until it expires.
+	@CacheEvict(cacheNames = CacheConfiguration.USERS, key = "#result.userId")
 	public User confirm(String confirmationToken) {
 		
-		User user = registrationRepository.findUserByConfirmationToken(confirmationToken).orElseThrow(() ->
-				new UserNotFoundException("User with confirmation token: " + confirmationToken + " not found."));
+		User user = registrationRepository.findUserByConfirmationTokenAndConfirmationTokenExpirationAfter(
+				confirmationToken, LocalDateTime.now()).orElseThrow(() ->
+				new UserNotFoundException("User with confirmation token: " + confirmationToken + " not found or expired."));
 		
 		if(user.isEnabled()) {
 			throw new IllegalArgumentException("Account with email: " + user.getEmail() + " is already active.");
@@ -63,5 +108,10 @@ public class RegistrationService {
 		registrationRepository.save(user);
 		return user;
 	}
+	
+	private static boolean isExpiredRegistration(User user, LocalDateTime now) {
+		return !user.isEnabled() && user.getConfirmationTokenExpiration() != null
+				&& user.getConfirmationTokenExpiration().isBefore(now);
+	}
 
 }
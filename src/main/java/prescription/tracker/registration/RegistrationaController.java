@@ -1,5 +1,7 @@
 package prescription.tracker.registration;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -8,28 +10,44 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.servlet.http.HttpServletRequest;
+import prescription.tracker.user.PasswordHasher;
 import prescription.tracker.user.User;
+import prescription.tracker.user.UserView;
 
 @RestController
 @RequestMapping("/api/register")
 public class RegistrationaController {
 	
 	private RegistrationService registrationService;
+	private PasswordHasher passwordHasher;
+	private RegistrationRateLimiter rateLimiter;
 	
 	
-	public RegistrationaController(RegistrationService registrationService) {
+	public RegistrationaController(RegistrationService registrationService, PasswordHasher passwordHasher,
+			RegistrationRateLimiter rateLimiter) {
 		this.registrationService = registrationService;
+		this.passwordHasher = passwordHasher;
+		this.rateLimiter = rateLimiter;
 	}
 	@PostMapping()
-	public ResponseEntity<User> register(@RequestBody User user){
-		return ResponseEntity.ok(registrationService.register(user));
+	public CompletableFuture<ResponseEntity<UserView>> register(@RequestBody User user, HttpServletRequest request){
+		// Throttled before any hashing, database or mail work is done.
+		rateLimiter.acquire(request.getRemoteAddr(), user.getEmail());
+		
+		// A taken email is rejected before its password occupies the bounded hashing pool.
+		registrationService.checkEmailAvailable(user.getEmail());
+		
+		// The password is hashed off the request thread; the user is stored once the hash is ready.
+		return passwordHasher.encode(user.getPassword()).thenApply(encodedPassword ->
+				ResponseEntity.ok(UserView.from(registrationService.register(user, encodedPassword))));
 		
 	}
 	
 	@GetMapping("/confirm")
-	public ResponseEntity<User> confirm(@RequestParam("token") String confirmationToken){
+	public ResponseEntity<UserView> confirm(@RequestParam("token") String confirmationToken){
 		
-		return ResponseEntity.ok(registrationService.confirm(confirmationToken));
+		return ResponseEntity.ok(UserView.from(registrationService.confirm(confirmationToken)));
 		
 	}
 
@@ -0,0 +1,112 @@
+package prescription.tracker.user;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import prescription.tracker.medication.Medication;
+
+/**
+ * Membership index over a user's medication list, so checking for a duplicate or a missing
+ * medication does not scan the list.
+ *
+ * <p>Medications are equal when they are the same instance or share an ID, which is exactly
+ * what the index answers: an identity set covers every indexed instance and a hash set covers
+ * their IDs. Medications indexed before they were saved have no ID yet; they are kept aside and
+ * moved into the ID set the first time an ID lookup finds them saved.
+ *
+ * @author josemarin
+ */
+final class MedicationIndex {
+
+	private final List<Medication> source;
+	private final Set<Medication> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final Set<Long> medIds = new HashSet<>();
+	private List<Medication> withoutId = new ArrayList<>();
+
+	/**
+	 * Indexes the medications currently in the list.
+	 *
+	 * @param source The user's medication list.
+	 */
+	MedicationIndex(List<Medication> source) {
+		this.source = source;
+		source.forEach(this::add);
+	}
+
+	/**
+	 * Tells whether this index was built over the given list.
+	 *
+	 * @param medications The user's current medication list.
+	 * @return True if the index belongs to that list.
+	 */
+	boolean indexes(List<Medication> medications) {
+		return source == medications;
+	}
+
+	/**
+	 * Tells whether an equal medication is indexed.
+	 *
+	 * @param medication The medication to look for.
+	 * @return True if the medication or another one with its ID is indexed.
+	 */
+	boolean contains(Medication medication) {
+
+		if(instances.contains(medication)) {
+			return true;
+		}
+
+		if(medication.getMedId() == null) {
+			return false;
+		}
+
+		indexSavedMedications();
+		return medIds.contains(medication.getMedId());
+	}
+
+	void add(Medication medication) {
+
+		instances.add(medication);
+
+		if(medication.getMedId() == null) {
+			withoutId.add(medication);
+		}
+		else {
+			medIds.add(medication.getMedId());
+		}
+	}
+
+	void remove(Medication medication) {
+
+		instances.remove(medication);
+		withoutId.remove(medication);
+
+		if(medication.getMedId() != null) {
+			medIds.remove(medication.getMedId());
+		}
+	}
+
+	private void indexSavedMedications() {
+
+		if(withoutId.isEmpty()) {
+			return;
+		}
+
+		List<Medication> stillWithoutId = new ArrayList<>();
+
+		for(Medication medication : withoutId) {
+			if(medication.getMedId() == null) {
+				stillWithoutId.add(medication);
+			}
+			else {
+				medIds.add(medication.getMedId());
+			}
+		}
+
+		withoutId = stillWithoutId;
+	}
+
+}
@@ -0,0 +1,73 @@
+package prescription.tracker.user;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import prescription.tracker.configuration.MetricsConfiguration;
+
+/**
+ * Hashes passwords on the dedicated hashing pool instead of the request thread.
+ *
+ * <p>The returned futures complete on the application task executor, so whatever the caller
+ * chains onto them (typically a database write) runs there and does not hold a hashing worker.
+ *
+ * @author josemarin
+ */
+@Component
+public class PasswordHasher {
+
+	private PasswordEncoder passwordEncoder;
+	private Executor hashingExecutor;
+	private Executor completionExecutor;
+	private Timer hashTimer;
+
+	public PasswordHasher(PasswordEncoder passwordEncoder,
+			@Qualifier("passwordHashingExecutor") Executor hashingExecutor,
+			@Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor completionExecutor,
+			MeterRegistry meterRegistry) {
+		this.passwordEncoder = passwordEncoder;
+		this.hashingExecutor = hashingExecutor;
+		this.completionExecutor = completionExecutor;
+		this.hashTimer = Timer.builder(MetricsConfiguration.PASSWORD_HASH_TIMER)
+				.description("BCrypt hash time, excluding the wait for a hashing thread")
+				.publishPercentileHistogram()
+				.minimumExpectedValue(Duration.ofMillis(1))
+				.maximumExpectedValue(Duration.ofSeconds(5))
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Hashes a password.
+	 *
+	 * @param rawPassword The password to hash.
+	 * @return The future hash.
+	 * @throws RejectedExecutionException if the hashing pool is saturated.
+	 */
+	public CompletableFuture<String> encode(String rawPassword) {
+		return CompletableFuture.supplyAsync(() -> hashTimer.record(() -> passwordEncoder.encode(rawPassword)), hashingExecutor)
+				.thenApplyAsync(Function.identity(), completionExecutor);
+	}
+
+	/**
+	 * Hashes a password if one was supplied. Without a password nothing is hashed and the
+	 * returned future is already complete.
+	 *
+	 * @param rawPassword The password to hash, or null.
+	 * @return The future hash, or a completed future holding null.
+	 * @throws RejectedExecutionException if the hashing pool is saturated.
+	 */
+	public CompletableFuture<String> encodeIfPresent(String rawPassword) {
+		return rawPassword == null ? CompletableFuture.completedFuture(null) : encode(rawPassword);
+	}
+
+}
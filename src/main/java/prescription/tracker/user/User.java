@@ -2,17 +2,30 @@ package prescription.tracker.user;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import prescription.tracker.exception.MedicationNotFoundException;
 import prescription.tracker.medication.Medication;
 
@@ -23,13 +36,26 @@ import prescription.tracker.medication.Medication;
  * 
  * The cascade operations (e.g., save, delete) from the user entity to associated medication entities
  * are configured, and orphan removal is enabled to remove orphaned medications when they are no longer associated with a user.
+ * Users are kept in the second-level cache ("user" region); their medication lists are not, since the
+ * bulk medication writes would evict them on every write.
+ * 
+ * The medications are loaded lazily, so a user is read on its own unless the {@value #WITH_MEDICATIONS}
+ * entity graph asks for the medications in the same query.
  * @author josemarin
  */
 @Data
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
 @Table(name = "users")
+@NamedEntityGraph(name = User.WITH_MEDICATIONS, attributeNodes = @NamedAttributeNode("medications"))
 public class User {
 	
+	/**
+	 * Name of the entity graph that fetches the user together with its medications.
+	 */
+	public static final String WITH_MEDICATIONS = "User.withMedications";
+	
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private long userId;
@@ -49,6 +75,14 @@ public class User {
 	@OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
 	private List<Medication> medications;
 	
+	// Built on the first membership check, so adding many medications stays linear.
+	@Transient
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	private MedicationIndex medicationIndex;
+	
 	private static final Integer MIN_PASSWORD_LENGTH = 8;
 
 	private static final Integer MAX_PASSWORD_LENGTH = 64;
@@ -116,16 +150,26 @@ public class User {
 	}
 	
 	/**
-	 * Retrieves a defensive copy of user's medications.
+	 * Retrieves a read-only view of user's medications. The view is not copied, so reading it
+	 * (as serialization does) costs nothing; changes go through the methods below.
 	 * 
 	 * @return List of user's medications.
 	 */
 	public List<Medication> getMedications(){
-		return new ArrayList<>(medications);
+		return Collections.unmodifiableList(medications);
 	}
 	
+	/**
+	 * Replaces the user's medications. The list is updated in place so a loaded user keeps
+	 * the collection Hibernate tracks.
+	 * 
+	 * @param medications The new medications of the user.
+	 */
 	public void setMedications(List<Medication> medications) {
-		this.medications = new ArrayList<>(medications);
+		List<Medication> replacement = new ArrayList<>(medications);
+		this.medications.clear();
+		this.medications.addAll(replacement);
+		medicationIndex = null;
 	}
 	
 	/**
@@ -140,11 +184,12 @@ public class User {
 			throw new IllegalArgumentException("Trying to add a null medication");
 		}
 		
-		if(medications.contains(medication)) {
+		if(medicationIndex().contains(medication)) {
 			throw new IllegalArgumentException("Trying to add duplicate medication");
 		}
 		
 		medications.add(medication);
+		medicationIndex.add(medication);
 		medication.setUser(this);
 	}
 	
@@ -155,12 +200,23 @@ public class User {
 	 * @throws MedicationNotFoundException If medication is null or not found.
 	 */
 	public void removeMedication(Medication medication) {
-		if(medication == null || !medications.contains(medication)) {
+		if(medication == null || !medicationIndex().contains(medication)) {
 			throw new MedicationNotFoundException("Medication " + medication + " not found");
 		}
 		
-		medications.remove(medication);
-		medication.setUser(null);
+		Medication removed = medications.remove(medications.indexOf(medication));
+		medicationIndex.remove(removed);
+		removed.setUser(null);
+	}
+	
+	private MedicationIndex medicationIndex() {
+		
+		// Hibernate may have replaced the list since the index was built.
+		if(medicationIndex == null || !medicationIndex.indexes(medications)) {
+			medicationIndex = new MedicationIndex(medications);
+		}
+		
+		return medicationIndex;
 	}
 	
 }
@@ -0,0 +1,33 @@
+package prescription.tracker.user;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import prescription.tracker.configuration.CacheConfiguration;
+
+/**
+ * Access to the user lookup cache for the write paths outside {@link UserService} (registration
+ * and purge), which evict the users they delete. Reads are cached declaratively on {@link UserService}.
+ *
+ * @author josemarin
+ */
+@Component
+public class UserCaches {
+
+	private Cache users;
+
+	public UserCaches(CacheManager cacheManager) {
+		this.users = cacheManager.getCache(CacheConfiguration.USERS);
+	}
+
+	/**
+	 * Evicts the view of a user.
+	 *
+	 * @param userId The ID of the user.
+	 */
+	public void evict(Long userId) {
+		users.evict(userId);
+	}
+
+}
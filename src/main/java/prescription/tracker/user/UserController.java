@@ -1,5 +1,7 @@
 package prescription.tracker.user;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,27 +16,31 @@ import org.springframework.web.bind.annotation.RestController;
 public class UserController {
 	
 	private UserService userService;
+	private PasswordHasher passwordHasher;
 	
-	public UserController(UserService userService) {
+	public UserController(UserService userService, PasswordHasher passwordHasher) {
 		this.userService = userService;
+		this.passwordHasher = passwordHasher;
 	}
 	
 	@GetMapping("/{userId}")
-	public ResponseEntity<User> getUser(@PathVariable Long userId) {
+	public ResponseEntity<UserView> getUser(@PathVariable Long userId) {
 		
 		return ResponseEntity.ok(userService.getUser(userId));
 	}
 	
 	@DeleteMapping("/remove/{userId}")
-	public ResponseEntity<User> removeUser(@PathVariable Long userId){
+	public ResponseEntity<UserView> removeUser(@PathVariable Long userId){
 		
-		return ResponseEntity.ok(userService.removeUser(userId));
+		return ResponseEntity.ok(UserView.from(userService.removeUser(userId)));
 	}
 	
 	@PutMapping("/update")
-	public ResponseEntity<User> updateUser(@RequestBody User user){
+	public CompletableFuture<ResponseEntity<UserView>> updateUser(@RequestBody User user){
 		
-		return ResponseEntity.ok(userService.updateUser(user));
+		// A new password is hashed off the request thread; without one nothing is hashed.
+		return passwordHasher.encodeIfPresent(user.getPassword()).thenApply(encodedPassword ->
+				ResponseEntity.ok(UserView.from(userService.updateUser(user, encodedPassword))));
 	}
 
 }
@@ -2,12 +2,16 @@ package prescription.tracker.user;
 
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 /**
  * This interface defines the repository for managing User entities in the database.
  * It extends JpaRepository to inherit basic CRUD operations.
  * 
  * <p>The additional method {@link #findUserByUsername(String)} allows retrieving a user by their username.
+ * {@link #findById(Object)} reads the user on its own, while {@link #findWithMedicationsByUserId(long)}
+ * fetches its medications in the same query.
  * 
  * @see JpaRepository
  * @see User
@@ -16,11 +20,31 @@ import org.springframework.data.jpa.repository.JpaRepository;
 public interface UserRepository extends JpaRepository<User, Long> {
     
     /**
-     * Retrieves a user by their username.
+     * Retrieves a user by their username. Emails are compared regardless of case, which the
+     * unique index on lower(email) serves.
      * 
      * @param username The unique username of the user to be retrieved.
      * @return An optional User object representing the user with the specified username.
      */
+    @Query("SELECT u FROM User u WHERE lower(u.email) = lower(:username)")
     Optional<User> findUserByEmail(String username);
+    
+    /**
+     * Retrieves the view of a user by their ID, without loading the user entity.
+     * 
+     * @param userId The unique identifier of the user.
+     * @return An optional view of the user.
+     */
+    @Query("SELECT new prescription.tracker.user.UserView(u.userId, u.email, u.isEnabled) FROM User u WHERE u.userId = :userId")
+    Optional<UserView> findViewById(long userId);
+    
+    /**
+     * Retrieves a user together with its medications in a single query.
+     * 
+     * @param userId The unique identifier of the user.
+     * @return An optional user with its medications loaded.
+     */
+    @EntityGraph(User.WITH_MEDICATIONS)
+    Optional<User> findWithMedicationsByUserId(long userId);
 }
 
@@ -1,43 +1,58 @@
 package prescription.tracker.user;
 import java.util.Optional;
 
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import io.micrometer.core.annotation.Timed;
+import prescription.tracker.configuration.CacheConfiguration;
+import prescription.tracker.configuration.MetricsConfiguration;
 import prescription.tracker.exception.DuplicateUserException;
 import prescription.tracker.exception.UserNotFoundException;
 import prescription.tracker.exception.UserNotVerifiedException;
+import prescription.tracker.medication.MedicationCaches;
 import prescription.tracker.medication.MedicationService;
 /**
  * Service class responsible for managing user data in the MedTrack application.
  * It provides methods for retrieving, registering, removing, and updating user information.
+ * Users are served from the lookup cache, which every write to a user evicts.
  * @author josemarin
  */
 
 @Service
+@Timed(MetricsConfiguration.SERVICE_TIMER)
 public class UserService {
 	
 	private UserRepository userRepo;
 	private MedicationService medicationService;
-	private PasswordEncoder passEncoder;
+	private MedicationCaches medicationCaches;
 	
-	public UserService(UserRepository userRepo, MedicationService medicationService, PasswordEncoder passEncoder) {
+	public UserService(UserRepository userRepo, MedicationService medicationService,
+			MedicationCaches medicationCaches) {
 		this.userRepo = userRepo;
 		this.medicationService = medicationService;
-		this.passEncoder = passEncoder;
+		this.medicationCaches = medicationCaches;
 	}
 	
 	/**
 	 * Retrieves a user by their user ID.
 	 * 
 	 * @param userId The ID of the user to retrieve.
-	 * @return The retrieved user.
+	 * @return The view of the retrieved user.
 	 * @throws UserNotFoundException if the user does not exists.
 	 * @throws UserNotVerifiedException if the user is not verified.
 	 */
-	public User getUser(Long userId) {
-		User user = findEnabledUserById(userId);
+	@Cacheable(cacheNames = CacheConfiguration.USERS, key = "#userId")
+	public UserView getUser(Long userId) {
+		UserView user = userRepo.findViewById(userId).orElseThrow(() -> {
+			return new UserNotFoundException("User with ID: " + userId + " not found.");
+		});
+		
+		if(!user.enabled()) {
+			throw new UserNotVerifiedException("Please confirm your account using the confirmation email sent to: " + user.email() + ".");
+		}
 		
 		return user;
 	}
@@ -51,6 +66,7 @@ public class UserService {
 	 * @throws UserNotVerifiedException if the user is not verified.
 	 */
 	@Transactional
+	@CacheEvict(cacheNames = CacheConfiguration.USERS, key = "#userId")
 	public User removeUser(Long userId) {
 		User user = findEnabledUserById(userId);
 		
@@ -62,18 +78,21 @@ public class UserService {
 	}
 	
 	/**
-	 * Updates user information. Updates password only if it's different
-	 * from the stored one.
+	 * Updates user information. The password is hashed by the caller (see {@link PasswordHasher})
+	 * and only replaced when a new one was supplied.
 	 * 
 	 * @param user The updated user information.
+	 * @param encodedPassword The hash of the new password, or null to keep the stored one.
 	 * @return The updated user.
 	 * @throws UserNotFoundException if the user does not exists.
 	 * @throws DuplicateUserException if email already exists in DB.
 	 * @throws UserNotVerifiedException if the user is not verified.
 	 */
 	@Transactional
-	public User updateUser(User user) {
-		User userToUpdate = findEnabledUserById(user.getUserId());
+	@CacheEvict(cacheNames = CacheConfiguration.USERS, key = "#user.userId")
+	public User updateUser(User user, String encodedPassword) {
+		// The medication list is replaced below, so it is fetched together with the user.
+		User userToUpdate = requireEnabled(user.getUserId(), userRepo.findWithMedicationsByUserId(user.getUserId()));
 		
 		Optional<User> userFoundByEmail = userRepo.findUserByEmail(user.getEmail());
 		if(userFoundByEmail.isPresent() && userFoundByEmail.get().getUserId() != user.getUserId()){
@@ -81,12 +100,15 @@ public class UserService {
 		}
 		userToUpdate.setEmail(user.getEmail());
 		
-		// If old password does not match new one; encode new one and update it.
-		if(!passEncoder.matches(user.getPassword(), userToUpdate.getPassword())) {
-			String encodedPassword = passEncoder.encode(user.getPassword());
+		if(encodedPassword != null) {
 			userToUpdate.setPassword(encodedPassword);
 		}
 
+		// Both the replaced and the new medications change owner or list, so all are evicted.
+		userToUpdate.getMedications().forEach(medication -> medicationCaches.evict(medication.getMedId(), null));
+		user.getMedications().forEach(medication -> medicationCaches.evict(medication.getMedId(), null));
+		medicationCaches.evictUserMedications(user.getUserId());
+		
 		userToUpdate.setMedications(user.getMedications());
 		
 		userRepo.save(userToUpdate);
@@ -102,8 +124,12 @@ public class UserService {
 	 * @throws UserNotVerifiedException if the user is not verified.
 	 */
 	private User findEnabledUserById(Long userId) {
+		return requireEnabled(userId, userRepo.findById(userId));
+	}
+	
+	private User requireEnabled(Long userId, Optional<User> found) {
 		
-		User user = userRepo.findById(userId).orElseThrow(() -> {
+		User user = found.orElseThrow(() -> {
 			return new UserNotFoundException("User with ID: " + userId + " not found.");
 		});
 		
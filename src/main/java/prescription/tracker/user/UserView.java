@@ -0,0 +1,25 @@
+package prescription.tracker.user;
+
+/**
+ * Read-only projection of a {@link User} returned by the API. It leaves out the password hash,
+ * the confirmation token and the medication list.
+ * 
+ * @param userId  The unique identifier for the user.
+ * @param email   The user's email address.
+ * @param enabled Indicates whether the user's account is enabled.
+ * 
+ * @author josemarin
+ */
+public record UserView(long userId, String email, boolean enabled) {
+	
+	/**
+	 * Creates the view of an already loaded user.
+	 * 
+	 * @param user The user to project.
+	 * @return The user's view.
+	 */
+	public static UserView from(User user) {
+		return new UserView(user.getUserId(), user.getEmail(), user.isEnabled());
+	}
+
+}
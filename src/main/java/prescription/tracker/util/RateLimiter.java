@@ -0,0 +1,90 @@
+package prescription.tracker.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * In-process token bucket rate limiter with one bucket per key.
+ *
+ * <p>Each bucket is a single {@link AtomicLong} holding the time at which it will be full again
+ * (the generic cell rate algorithm), so a permit is taken with one compare-and-set and no lock.
+ * Buckets live in a size-bounded cache; a bucket left alone for a whole period is full again and
+ * is simply dropped, so memory stays bounded however many keys are seen.
+ *
+ * @author josemarin
+ */
+public class RateLimiter {
+
+	private final long intervalNanos;
+	private final long burstNanos;
+	private final LongSupplier nanoClock;
+	private final Cache<String, AtomicLong> buckets;
+
+	/**
+	 * Creates a limiter allowing {@code capacity} permits per {@code period} and key, all of
+	 * which may be taken at once.
+	 *
+	 * @param capacity The number of permits a full bucket holds.
+	 * @param period   The time it takes to refill an empty bucket.
+	 * @param maxKeys  The most buckets kept at once.
+	 */
+	public RateLimiter(int capacity, Duration period, long maxKeys) {
+		this(capacity, period, maxKeys, System::nanoTime);
+	}
+
+	/**
+	 * Creates a limiter reading time from the given clock.
+	 *
+	 * @param capacity  The number of permits a full bucket holds.
+	 * @param period    The time it takes to refill an empty bucket.
+	 * @param maxKeys   The most buckets kept at once.
+	 * @param nanoClock Monotonic time in nanoseconds.
+	 * @throws IllegalArgumentException if the capacity or the period is not positive.
+	 */
+	public RateLimiter(int capacity, Duration period, long maxKeys, LongSupplier nanoClock) {
+
+		if(capacity < 1 || period.isZero() || period.isNegative()) {
+			throw new IllegalArgumentException("Rate limit must allow at least one permit per positive period");
+		}
+
+		this.intervalNanos = period.toNanos() / capacity;
+		this.burstNanos = intervalNanos * (capacity - 1);
+		this.nanoClock = nanoClock;
+		this.buckets = Caffeine.newBuilder()
+				.maximumSize(maxKeys)
+				.expireAfterAccess(period)
+				.build();
+	}
+
+	/**
+	 * Takes a permit from the key's bucket if one is available.
+	 *
+	 * @param key The key the permit is counted against.
+	 * @return Zero if the permit was taken, otherwise the nanoseconds until one is available.
+	 */
+	public long tryAcquire(String key) {
+
+		AtomicLong fullAt = buckets.get(key, k -> new AtomicLong(nanoClock.getAsLong()));
+
+		while(true) {
+			long now = nanoClock.getAsLong();
+			long current = fullAt.get();
+			// An idle bucket does not keep filling past its capacity.
+			long start = current - now > 0 ? current : now;
+			long wait = start - now - burstNanos;
+
+			if(wait > 0) {
+				return wait;
+			}
+
+			if(fullAt.compareAndSet(current, start + intervalNanos)) {
+				return 0;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,61 @@
+package prescription.tracker.util;
+
+/**
+ * Counts and times the JDBC statements run by the current thread between {@link #start()} and
+ * {@link #stop()}, typically for the duration of one HTTP request. Statements run while no
+ * tracker is started (or on other threads) are ignored.
+ *
+ * @author josemarin
+ */
+public final class StatementTracker {
+
+	private static final ThreadLocal<StatementTracker> CURRENT = new ThreadLocal<>();
+
+	private int statements;
+	private long elapsedNanos;
+
+	private StatementTracker() {
+	}
+
+	/**
+	 * Starts tracking on the current thread, discarding any earlier counts.
+	 *
+	 * @return The tracker collecting the counts.
+	 */
+	public static StatementTracker start() {
+		StatementTracker tracker = new StatementTracker();
+		CURRENT.set(tracker);
+		return tracker;
+	}
+
+	/**
+	 * Stops tracking on the current thread.
+	 */
+	public static void stop() {
+		CURRENT.remove();
+	}
+
+	/**
+	 * Records one statement execution (a query, an update or a whole batch) if tracking is on.
+	 *
+	 * @param elapsedNanos The time the database took to execute it.
+	 */
+	public static void record(long elapsedNanos) {
+
+		StatementTracker tracker = CURRENT.get();
+
+		if(tracker != null) {
+			tracker.statements++;
+			tracker.elapsedNanos += elapsedNanos;
+		}
+	}
+
+	public int getStatements() {
+		return statements;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+}
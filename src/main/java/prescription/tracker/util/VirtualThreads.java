@@ -0,0 +1,51 @@
+package prescription.tracker.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual thread factories while the code base still targets Java 17. The Java 21
+ * {@code Thread.ofVirtual()} builder is looked up reflectively, so the application compiles and
+ * runs on Java 17 and only the virtual thread mode requires Java 21.
+ *
+ * @author josemarin
+ */
+public final class VirtualThreads {
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * Tells whether the running JVM has virtual threads.
+	 *
+	 * @return True on Java 21 and later.
+	 */
+	public static boolean isSupported() {
+		return Runtime.version().feature() >= 21;
+	}
+
+	/**
+	 * Creates a factory of virtual threads named with the prefix and a counter.
+	 *
+	 * @param namePrefix The prefix of the thread names, e.g. {@code "mail-"}.
+	 * @return The thread factory.
+	 * @throws IllegalStateException if the JVM has no virtual threads.
+	 */
+	public static ThreadFactory threadFactory(String namePrefix) {
+
+		if(!isSupported()) {
+			throw new IllegalStateException("Virtual threads need Java 21 or later, running on " + Runtime.version());
+		}
+
+		try {
+			Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+			return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+		}
+		catch(ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException ex) {
+			throw new IllegalStateException("Could not create a virtual thread factory", ex);
+		}
+	}
+
+}
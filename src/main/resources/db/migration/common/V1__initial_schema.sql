@@ -0,0 +1,66 @@
+-- Initial MedTrack schema, matching the JPA mappings (checked at startup by ddl-auto=validate).
+-- Written in the SQL that PostgreSQL and H2 both accept; vendor-specific parts live in
+-- db/migration/{vendor}.
+
+create table users (
+    user_id                       bigint generated by default as identity primary key,
+    email                         varchar(255) not null,
+    password                      varchar(255),
+    confirmation_token            varchar(255),
+    confirmation_token_expiration timestamp(6),
+    is_enabled                    boolean not null
+);
+
+-- Confirmation links look the user up by token.
+create index idx_users_confirmation_token on users (confirmation_token);
+
+-- Medication IDs are handed out in blocks of 50 (allocationSize) so inserts can be batched.
+create sequence medication_seq start with 1 increment by 50;
+
+create table medication (
+    med_id         bigint primary key,
+    name           varchar(255),
+    dosage         double precision not null,
+    quantity       integer not null,
+    refills        integer not null,
+    times_per_day  integer not null,
+    last_refilled  date,
+    reminder_days  integer not null,
+    reminder_date  date,
+    on_hand        integer,
+    version        bigint,
+    user_id        bigint references users (user_id)
+);
+
+-- Reminder sweep: medications due on a day, in (user, medication) order.
+create index idx_medication_reminder_date on medication (reminder_date, user_id, med_id);
+-- Per-user listings by name; also serves the user_id foreign key.
+create index idx_medication_user_name on medication (user_id, name, med_id);
+-- Per-user listings by reminder date, and lookups on (user_id, reminder_date).
+create index idx_medication_user_reminder_date on medication (user_id, reminder_date, med_id);
+
+create table medication_event (
+    event_id       bigint generated by default as identity primary key,
+    med_id         bigint not null references medication (med_id) on delete cascade,
+    type           varchar(255) not null,
+    amount         integer not null,
+    balance_after  integer not null,
+    occurred_at    timestamp(6) not null
+);
+
+create index idx_medication_event_med on medication_event (med_id, event_id);
+
+create table outbound_email (
+    email_id         bigint generated by default as identity primary key,
+    recipient        varchar(255) not null,
+    subject          varchar(255) not null,
+    content          varchar(65535) not null,
+    html             boolean not null,
+    status           varchar(255) not null,
+    attempts         integer not null,
+    next_attempt_at  timestamp(6),
+    last_error       varchar(1000),
+    created_at       timestamp(6)
+);
+
+create index idx_outbound_email_status_next_attempt on outbound_email (status, next_attempt_at);
@@ -0,0 +1,3 @@
+-- Time an email was claimed for sending, so only claims older than the lease are requeued
+-- and emails another instance is still sending are left alone.
+alter table outbound_email add column claimed_at timestamp(6);
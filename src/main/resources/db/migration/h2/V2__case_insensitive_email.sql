@@ -0,0 +1,3 @@
+-- H2 cannot index an expression, so the lower-cased email is kept in a generated column.
+alter table users add column email_lower varchar(255) generated always as (lower(email));
+create unique index idx_users_email_lower on users (email_lower);
@@ -0,0 +1,3 @@
+-- The expired-registration purge and the confirmation check filter on the token expiry.
+-- H2 has no partial indexes, so confirmed accounts (no expiry) are indexed under NULL as well.
+create index idx_users_confirmation_token_expiration on users (confirmation_token_expiration);
@@ -0,0 +1,2 @@
+-- Emails are unique regardless of case, and lookups on lower(email) are served by this index.
+create unique index idx_users_email_lower on users (lower(email));
@@ -0,0 +1,6 @@
+-- The expired-registration purge and the confirmation check filter on the token expiry.
+-- Confirmed accounts have no expiry; PostgreSQL would index their NULLs too, so the index is
+-- partial and only grows with pending registrations. Both filters compare the expiry, which
+-- implies it is not null, so they can use it.
+create index idx_users_confirmation_token_expiration on users (confirmation_token_expiration)
+    where confirmation_token_expiration is not null;
@@ -0,0 +1,60 @@
+package prescription.tracker.test.benchmark;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import prescription.tracker.email.EmailTemplateRenderer;
+import prescription.tracker.medication.Medication;
+import prescription.tracker.test.support.EmailTemplates;
+
+/**
+ * Renders the email bodies sent at campaign volume, with the template engine the renderer tests
+ * also use. Run with {@code mvn test -Pbenchmark -Djmh.include=EmailRenderingBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailRenderingBenchmark {
+
+	private EmailTemplateRenderer templateRenderer;
+	private List<Medication> medications;
+	private int token;
+
+	@Setup
+	public void setUp() {
+
+		templateRenderer = new EmailTemplateRenderer(EmailTemplates.templateEngine());
+
+		medications = List.of(
+				new Medication(1L, "BUP", 3.4, 30, 2, 2, LocalDate.now(), 7, null),
+				new Medication(2L, "PAR", 8.6, 20, 1, 1, LocalDate.now(), 7, null),
+				new Medication(3L, "IBU", 2.0, 60, 0, 3, LocalDate.now(), 5, null));
+	}
+
+	@Benchmark
+	public String renderLowMedications() {
+		return templateRenderer.renderLowMedications(medications);
+	}
+
+	// A new link per message, as every confirmation carries its own token.
+	@Benchmark
+	public String renderConfirmation() {
+		return templateRenderer.renderConfirmation("http://localhost:8080/api/register/confirm?token=" + token++);
+	}
+
+}
@@ -0,0 +1,77 @@
+package prescription.tracker.test.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import prescription.tracker.medication.Medication;
+import prescription.tracker.user.User;
+
+/**
+ * Serializes medications and users with an object mapper configured as Spring MVC configures it.
+ * Run with {@code mvn test -Pbenchmark -Djmh.include=JsonSerializationBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+	@Param({"10", "100"})
+	private int medications;
+
+	private ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+	private Medication medication;
+	private List<Medication> medicationList;
+	private User user;
+
+	@Setup
+	public void setUp() {
+
+		user = new User(1L, "benchmark@email.com", "password", true, List.of());
+		medicationList = new ArrayList<>(medications);
+
+		for(int i = 0; i < medications; i++) {
+			Medication med = new Medication((long) i + 1, "MED" + i, 1.0, 30, 1, 1, LocalDate.now(), 7, null);
+			user.addMedication(med);
+			medicationList.add(med);
+		}
+
+		medication = medicationList.get(0);
+	}
+
+	@Benchmark
+	public byte[] serializeMedication() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(medication);
+	}
+
+	@Benchmark
+	public byte[] serializeMedicationList() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(medicationList);
+	}
+
+	@Benchmark
+	public byte[] serializeUser() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(user);
+	}
+
+}
@@ -0,0 +1,87 @@
+package prescription.tracker.test.benchmark;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import prescription.tracker.medication.Medication;
+import prescription.tracker.medication.MedicationPatch;
+import prescription.tracker.medication.MedicationQuantityChecker;
+
+/**
+ * Construction, validating setters and the reminder date recomputation they trigger.
+ * Run with {@code mvn test -Pbenchmark -Djmh.include=MedicationBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MedicationBenchmark {
+
+	private static final LocalDate LAST_REFILLED = LocalDate.of(2023, 10, 1);
+
+	private MedicationQuantityChecker quantityChecker = new MedicationQuantityChecker();
+	private MedicationPatch patch = new MedicationPatch(null, null, 60, null, 2, null, 5);
+	private Medication medication;
+	private int quantity;
+
+	@Setup
+	public void setUp() {
+		medication = new Medication(1L, "BUP", 3.4, 90, 2, 2, LAST_REFILLED, 7, null);
+		quantity = 90;
+	}
+
+	@Benchmark
+	public Medication construct() {
+		return new Medication(1L, "BUP", 3.4, 90, 2, 2, LAST_REFILLED, 7, null);
+	}
+
+	@Benchmark
+	public LocalDate setQuantity() {
+		// Alternates so the reminder date really changes on every call.
+		quantity = quantity == 90 ? 60 : 90;
+		medication.setQuantity(quantity);
+		return medication.getReminderDate();
+	}
+
+	@Benchmark
+	public Medication setValidatedFields() {
+		medication.setName("PAR");
+		medication.setDosage(8.6);
+		medication.setRefills(1);
+		medication.setLastRefilled(LAST_REFILLED);
+		return medication;
+	}
+
+	@Benchmark
+	public LocalDate updateReminderDateThroughSetters() {
+		medication.setTimesPerDay(2);
+		medication.setReminderDays(7);
+		medication.setQuantity(90);
+		return medication.getReminderDate();
+	}
+
+	@Benchmark
+	public LocalDate updateReminderDateThroughPatch() {
+		medication.applyPatch(patch);
+		return medication.getReminderDate();
+	}
+
+	@Benchmark
+	public long quantityLeft() {
+		return quantityChecker.quantityLef(medication);
+	}
+
+}
@@ -0,0 +1,56 @@
+package prescription.tracker.test.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * BCrypt verification and hashing at the default strength and around the calibrated range, to
+ * check the {@code medtrack.security.bcrypt.target-time} budget on a given host.
+ * Run with {@code mvn test -Pbenchmark -Djmh.include=PasswordEncoderBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+	private static final String PASSWORD = "correct horse battery";
+
+	@Param({"10", "12"})
+	private int strength;
+
+	private PasswordEncoder passwordEncoder;
+	private String encodedPassword;
+
+	@Setup
+	public void setUp() {
+		passwordEncoder = new BCryptPasswordEncoder(strength);
+		encodedPassword = passwordEncoder.encode(PASSWORD);
+	}
+
+	@Benchmark
+	public boolean matches() {
+		return passwordEncoder.matches(PASSWORD, encodedPassword);
+	}
+
+	@Benchmark
+	public String encode() {
+		return passwordEncoder.encode(PASSWORD);
+	}
+
+}
@@ -0,0 +1,39 @@
+package prescription.tracker.test.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import prescription.tracker.util.Token;
+import prescription.tracker.util.TokenGenerator;
+
+/**
+ * Confirmation token generation, alone and from several threads since the random UUIDs share
+ * one secure random source. Run with {@code mvn test -Pbenchmark -Djmh.include=TokenGeneratorBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenGeneratorBenchmark {
+
+	@Benchmark
+	public Token generateToken() {
+		return TokenGenerator.generateToken();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Token generateTokenContended() {
+		return TokenGenerator.generateToken();
+	}
+
+}
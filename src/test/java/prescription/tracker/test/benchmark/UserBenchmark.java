@@ -0,0 +1,75 @@
+package prescription.tracker.test.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import prescription.tracker.medication.Medication;
+import prescription.tracker.user.User;
+
+/**
+ * Builds users with large medication lists one {@link User#addMedication(Medication)} at a time,
+ * for saved and unsaved medications. Scores are per user built, so they should grow linearly
+ * with the list size while the duplicate check stays constant time. Run with {@code mvn test -Pbenchmark -Djmh.include=UserBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserBenchmark {
+
+	@Param({"100", "1000", "10000"})
+	private int medications;
+
+	private List<Medication> saved;
+	private List<Medication> unsaved;
+
+	@Setup
+	public void setUp() {
+
+		saved = new ArrayList<>(medications);
+		unsaved = new ArrayList<>(medications);
+
+		for(int i = 0; i < medications; i++) {
+			saved.add(new Medication((long) i + 1, "MED" + i, 1.0, 30, 1, 1, LocalDate.now(), 7, null));
+			unsaved.add(new Medication(null, "MED" + i, 1.0, 30, 1, 1, LocalDate.now(), 7, null));
+		}
+	}
+
+	@Benchmark
+	public User addSavedMedications() {
+		return addAll(saved);
+	}
+
+	@Benchmark
+	public User addUnsavedMedications() {
+		return addAll(unsaved);
+	}
+
+	private static User addAll(List<Medication> medications) {
+
+		User user = new User();
+
+		for(Medication medication : medications) {
+			user.addMedication(medication);
+		}
+
+		return user;
+	}
+
+}
@@ -0,0 +1,28 @@
+package prescription.tracker.test.configuration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import prescription.tracker.configuration.DatabaseIndexCheck;
+
+@DataJpaTest
+@Import(DatabaseIndexCheck.class)
+public class DatabaseIndexCheckTest {
+
+	@Autowired
+	private DatabaseIndexCheck indexCheck;
+
+	@Test
+	public void shouldFindEveryIndexCreatedByMigrations() {
+
+		assertEquals(List.of(), indexCheck.missingIndexes());
+		assertDoesNotThrow(indexCheck::verify);
+	}
+
+}
@@ -0,0 +1,49 @@
+package prescription.tracker.test.configuration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import prescription.tracker.configuration.SecurityConfiguration;
+
+public class SecurityConfigurationTest {
+
+	// Every strength doubles the cost of the previous one; strength 10 takes 50ms here.
+	private static long nanosAt(int strength) {
+		return Duration.ofMillis(50).toNanos() << (strength - 10);
+	}
+
+	@Test
+	public void shouldCalibrateToHighestStrengthWithinTarget() {
+
+		List<Integer> measured = new ArrayList<>();
+
+		int strength = SecurityConfiguration.calibrateStrength(Duration.ofMillis(250), s -> {
+			measured.add(s);
+			return nanosAt(s);
+		});
+
+		// 50ms, 100ms and 200ms fit in 250ms; 400ms does not and is never measured.
+		assertEquals(12, strength);
+		assertEquals(List.of(10, 11, 12), measured);
+	}
+
+	@Test
+	public void shouldNotCalibrateBelowMinimumStrength() {
+
+		assertEquals(SecurityConfiguration.MIN_CALIBRATED_STRENGTH,
+				SecurityConfiguration.calibrateStrength(Duration.ofMillis(1), SecurityConfigurationTest::nanosAt));
+	}
+
+	@Test
+	public void shouldNotCalibrateAboveMaximumStrength() {
+
+		assertEquals(SecurityConfiguration.MAX_CALIBRATED_STRENGTH,
+				SecurityConfiguration.calibrateStrength(Duration.ofHours(1), s -> 1L));
+	}
+
+}
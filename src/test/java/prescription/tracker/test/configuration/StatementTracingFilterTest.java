@@ -0,0 +1,76 @@
+package prescription.tracker.test.configuration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import prescription.tracker.configuration.StatementTracingFilter;
+import prescription.tracker.util.StatementTracker;
+
+public class StatementTracingFilterTest {
+
+	private StatementTracingFilter filter = new StatementTracingFilter(10, Duration.ofMillis(200));
+
+	@Test
+	public void shouldReportStatementsRunBeforeTheBody() throws Exception {
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(new MockHttpServletRequest("GET", "/api/user/1"), response, (request, res) -> {
+			StatementTracker.record(TimeUnit.MILLISECONDS.toNanos(2));
+			StatementTracker.record(TimeUnit.MICROSECONDS.toNanos(500));
+			res.getWriter().write("{}");
+			// Statements run once the body has started cannot change the headers any more.
+			StatementTracker.record(TimeUnit.MILLISECONDS.toNanos(1));
+		});
+
+		assertEquals("2", response.getHeader(StatementTracingFilter.STATEMENTS_HEADER));
+		assertEquals("2.500", response.getHeader(StatementTracingFilter.DB_TIME_HEADER));
+	}
+
+	@Test
+	public void shouldReportStatementsOfResponsesWithoutBody() throws Exception {
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(new MockHttpServletRequest("DELETE", "/api/user/remove/1"), response,
+				(request, res) -> StatementTracker.record(TimeUnit.MILLISECONDS.toNanos(1)));
+
+		assertEquals("1", response.getHeader(StatementTracingFilter.STATEMENTS_HEADER));
+		assertEquals("1.000", response.getHeader(StatementTracingFilter.DB_TIME_HEADER));
+	}
+
+	@Test
+	public void shouldStopTrackingAfterTheRequest() throws Exception {
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(new MockHttpServletRequest("GET", "/api/user/1"), response, (request, res) -> {});
+		StatementTracker.record(TimeUnit.MILLISECONDS.toNanos(1));
+
+		assertEquals("0", response.getHeader(StatementTracingFilter.STATEMENTS_HEADER));
+		assertEquals("0.000", response.getHeader(StatementTracingFilter.DB_TIME_HEADER));
+	}
+
+	@Test
+	public void shouldNotReportAsyncRequests() throws Exception {
+
+		MockHttpServletRequest asyncRequest = new MockHttpServletRequest("POST", "/api/register");
+		asyncRequest.setAsyncSupported(true);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(asyncRequest, response, (request, res) -> request.startAsync(request, res));
+
+		// The async dispatch writes the body later through the same response wrapper.
+		asyncRequest.getAsyncContext().getResponse().getWriter().write("{}");
+
+		assertNull(response.getHeader(StatementTracingFilter.STATEMENTS_HEADER));
+		assertNull(response.getHeader(StatementTracingFilter.DB_TIME_HEADER));
+	}
+
+}
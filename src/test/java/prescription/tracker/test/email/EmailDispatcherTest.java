@@ -0,0 +1,109 @@
+package prescription.tracker.test.email;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import prescription.tracker.configuration.MetricsConfiguration;
+import prescription.tracker.email.EmailBatchSender;
+import prescription.tracker.email.EmailDispatcher;
+import prescription.tracker.email.EmailOutbox;
+import prescription.tracker.email.OutboundEmail;
+
+@ExtendWith(MockitoExtension.class)
+public class EmailDispatcherTest {
+	
+	@Mock
+	private EmailOutbox emailOutbox;
+	
+	@Mock
+	private JavaMailSender javaMailSender;
+	
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	
+	private EmailDispatcher emailDispatcher;
+	
+	private OutboundEmail first;
+	private OutboundEmail second;
+	
+	@BeforeEach
+	public void setUp() {
+		emailDispatcher = new EmailDispatcher(emailOutbox, new EmailBatchSender(javaMailSender, meterRegistry), new SyncTaskExecutor(), 2);
+		
+		first = new OutboundEmail("first@email.com", "Subject", "Content", false);
+		second = new OutboundEmail("second@email.com", "Subject", "<p>Content</p>", true);
+	}
+	
+	@Test
+	public void shouldSendChunkInSingleCall() {
+		
+		given(javaMailSender.createMimeMessage())
+			.willAnswer(invocation -> new MimeMessage((Session) null));
+		given(emailOutbox.claimDue(2)).willReturn(List.of(first, second), List.of());
+		
+		emailDispatcher.dispatch();
+		
+		verify(javaMailSender, times(1)).send(any(MimeMessage[].class));
+		verify(emailOutbox).markSent(first);
+		verify(emailOutbox).markSent(second);
+	}
+	
+	@Test
+	public void shouldRetryOnlyFailedMessages() {
+		
+		MimeMessage firstMessage = new MimeMessage((Session) null);
+		MimeMessage secondMessage = new MimeMessage((Session) null);
+		
+		given(javaMailSender.createMimeMessage()).willReturn(firstMessage, secondMessage);
+		willThrow(new MailSendException(Map.<Object, Exception>of(firstMessage, new MessagingException("Mailbox unavailable"))))
+			.given(javaMailSender).send(any(MimeMessage[].class));
+		
+		emailDispatcher.deliver(List.of(first, second));
+		
+		verify(emailOutbox).markFailed(first, "Mailbox unavailable");
+		verify(emailOutbox).markSent(second);
+		
+		assertEquals(1, meterRegistry.get(MetricsConfiguration.MAIL_SEND_TIMER).tag("outcome", "failure").timer().count());
+		assertEquals(1, meterRegistry.get(MetricsConfiguration.MAIL_MESSAGES_COUNTER).tag("outcome", "sent").counter().count());
+		assertEquals(1, meterRegistry.get(MetricsConfiguration.MAIL_MESSAGES_COUNTER).tag("outcome", "failed").counter().count());
+	}
+	
+	@Test
+	public void shouldFailWholeChunkWhenServerIsUnreachable() {
+		
+		given(javaMailSender.createMimeMessage())
+			.willAnswer(invocation -> new MimeMessage((Session) null));
+		willThrow(new MailSendException("Connection refused"))
+			.given(javaMailSender).send(any(MimeMessage[].class));
+		
+		emailDispatcher.deliver(List.of(first, second));
+		
+		verify(emailOutbox).markFailed(eq(first), anyString());
+		verify(emailOutbox).markFailed(eq(second), anyString());
+		verify(emailOutbox, never()).markSent(any(OutboundEmail.class));
+	}
+
+}
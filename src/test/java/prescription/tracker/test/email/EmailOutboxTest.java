@@ -0,0 +1,158 @@
+package prescription.tracker.test.email;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import prescription.tracker.email.EmailOutbox;
+import prescription.tracker.email.OutboundEmail;
+import prescription.tracker.email.OutboundEmailRepository;
+import prescription.tracker.email.OutboundEmailStatus;
+import prescription.tracker.exception.EmailQueueFullException;
+
+@ExtendWith(MockitoExtension.class)
+public class EmailOutboxTest {
+	
+	@Mock
+	private OutboundEmailRepository outboundEmailRepository;
+	
+	private EmailOutbox emailOutbox;
+	
+	@BeforeEach
+	public void setUp() {
+		emailOutbox = new EmailOutbox(outboundEmailRepository, 2, 3, Duration.ofSeconds(30), Duration.ofMinutes(1),
+				Duration.ofMinutes(10));
+	}
+	
+	@Test
+	public void shouldEnqueuePendingEmail() {
+		
+		given(outboundEmailRepository.countByStatus(OutboundEmailStatus.PENDING)).willReturn(1L);
+		given(outboundEmailRepository.save(any(OutboundEmail.class))).willAnswer(invocation -> invocation.getArgument(0));
+		
+		OutboundEmail email = emailOutbox.enqueue("email@email.com", "Subject", "Content", false);
+		
+		assertEquals(OutboundEmailStatus.PENDING, email.getStatus());
+		assertEquals(0, email.getAttempts());
+		assertEquals("email@email.com", email.getRecipient());
+	}
+	
+	@Test
+	public void shouldFailEnqueueWhenQueueIsFull() {
+		
+		given(outboundEmailRepository.countByStatus(OutboundEmailStatus.PENDING)).willReturn(2L);
+		
+		assertThrows(EmailQueueFullException.class, () ->
+				emailOutbox.enqueue("email@email.com", "Subject", "Content", false));
+		
+		verify(outboundEmailRepository, never()).save(any(OutboundEmail.class));
+	}
+	
+	@Test
+	public void shouldRescheduleFailedEmailWithBackoff() {
+		
+		OutboundEmail email = new OutboundEmail("email@email.com", "Subject", "Content", false);
+		
+		emailOutbox.markFailed(email, "Connection refused");
+		
+		assertEquals(OutboundEmailStatus.PENDING, email.getStatus());
+		assertEquals(1, email.getAttempts());
+		assertEquals("Connection refused", email.getLastError());
+		assertTrue(email.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(25)));
+		
+		emailOutbox.markFailed(email, "Connection refused");
+		
+		// Second failure doubles the delay, capped at one minute.
+		assertTrue(email.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(55)));
+		assertTrue(email.getNextAttemptAt().isBefore(LocalDateTime.now().plusSeconds(61)));
+	}
+	
+	@Test
+	public void shouldGiveUpAfterMaxAttempts() {
+		
+		OutboundEmail email = new OutboundEmail("email@email.com", "Subject", "Content", false);
+		
+		emailOutbox.markFailed(email, "error");
+		emailOutbox.markFailed(email, "error");
+		emailOutbox.markFailed(email, "error");
+		
+		assertEquals(OutboundEmailStatus.FAILED, email.getStatus());
+		assertEquals(3, email.getAttempts());
+	}
+	
+	@Test
+	public void shouldClaimDueEmails() {
+		
+		OutboundEmail email = new OutboundEmail("email@email.com", "Subject", "Content", false);
+		
+		given(outboundEmailRepository.findDue(any(LocalDateTime.class), any(Pageable.class))).willReturn(List.of(email));
+		given(outboundEmailRepository.saveAll(List.of(email))).willReturn(List.of(email));
+		
+		assertEquals(List.of(email), emailOutbox.claimDue(5));
+		
+		assertEquals(OutboundEmailStatus.SENDING, email.getStatus());
+		assertNotNull(email.getClaimedAt());
+	}
+	
+	@Test
+	public void shouldOnlyRequeueClaimsOlderThanLease() {
+		
+		ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+		given(outboundEmailRepository.requeue(eq(OutboundEmailStatus.SENDING), cutoff.capture())).willReturn(1);
+		
+		assertEquals(1, emailOutbox.requeueInterrupted());
+		
+		assertTrue(cutoff.getValue().isBefore(LocalDateTime.now().minusMinutes(9)));
+		assertTrue(cutoff.getValue().isAfter(LocalDateTime.now().minusMinutes(11)));
+	}
+	
+	@Test
+	public void shouldRequeueClaimOnceItOutlivesTheLease() {
+		
+		OutboundEmail abandoned = new OutboundEmail("email@email.com", "Subject", "Content", false);
+		OutboundEmail sending = new OutboundEmail("other@email.com", "Subject", "Content", false);
+		
+		given(outboundEmailRepository.findDue(any(LocalDateTime.class), any(Pageable.class))).willReturn(List.of(abandoned, sending));
+		given(outboundEmailRepository.saveAll(List.of(abandoned, sending))).willReturn(List.of(abandoned, sending));
+		emailOutbox.claimDue(5);
+		
+		// The worker sending the first email died 11 minutes ago; the second is still being sent.
+		abandoned.setClaimedAt(abandoned.getClaimedAt().minusMinutes(11));
+		
+		ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+		given(outboundEmailRepository.requeue(eq(OutboundEmailStatus.SENDING), cutoff.capture())).willReturn(1);
+		
+		assertEquals(1, emailOutbox.requeueInterrupted());
+		
+		assertTrue(abandoned.getClaimedAt().isBefore(cutoff.getValue()));
+		assertFalse(sending.getClaimedAt().isBefore(cutoff.getValue()));
+	}
+	
+	@Test
+	public void shouldMarkEmailSent() {
+		
+		OutboundEmail email = new OutboundEmail("email@email.com", "Subject", "Content", false);
+		
+		emailOutbox.markSent(email);
+		
+		assertEquals(OutboundEmailStatus.SENT, email.getStatus());
+		assertEquals(1, email.getAttempts());
+		verify(outboundEmailRepository).save(email);
+	}
+
+}
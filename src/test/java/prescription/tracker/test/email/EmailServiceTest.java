@@ -0,0 +1,98 @@
+package prescription.tracker.test.email;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import prescription.tracker.email.EmailBatchSender;
+import prescription.tracker.email.EmailDeliveryResult;
+import prescription.tracker.email.EmailOutbox;
+import prescription.tracker.email.EmailService;
+import prescription.tracker.email.EmailTemplateRenderer;
+import prescription.tracker.email.LowMedicationNotification;
+import prescription.tracker.medication.Medication;
+
+@ExtendWith(MockitoExtension.class)
+public class EmailServiceTest {
+	
+	@Mock
+	private JavaMailSender javaMailSender;
+	
+	@Mock
+	private EmailTemplateRenderer templateRenderer;
+	
+	@Mock
+	private EmailOutbox emailOutbox;
+	
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	
+	private EmailService emailService;
+	
+	private List<Medication> medications;
+	
+	@BeforeEach
+	public void setUp() {
+		emailService = new EmailService(new EmailBatchSender(javaMailSender, meterRegistry), templateRenderer, emailOutbox, 2);
+		medications = List.of(new Medication(1L, "BUP", 3.4, 30, 2, 2, LocalDate.now(), 7, null));
+	}
+	
+	@Test
+	public void shouldSendNotificationsInChunks() {
+		
+		given(javaMailSender.createMimeMessage())
+			.willAnswer(invocation -> new MimeMessage((Session) null));
+		given(templateRenderer.renderLowMedications(medications)).willReturn("<p>BUP</p>");
+		
+		List<EmailDeliveryResult> results = emailService.sendLowMedicationsNotifications(List.of(
+				new LowMedicationNotification("first@email.com", medications),
+				new LowMedicationNotification("second@email.com", medications),
+				new LowMedicationNotification("third@email.com", medications)));
+		
+		// Three notifications with a batch size of two: two transport sessions.
+		verify(javaMailSender, times(2)).send(any(MimeMessage[].class));
+		
+		assertEquals(3, results.size());
+		assertTrue(results.stream().allMatch(EmailDeliveryResult::sent));
+		assertEquals("third@email.com", results.get(2).recipient());
+	}
+	
+	@Test
+	public void shouldReportFailuresPerMessage() {
+		
+		MimeMessage firstMessage = new MimeMessage((Session) null);
+		MimeMessage secondMessage = new MimeMessage((Session) null);
+		
+		given(javaMailSender.createMimeMessage()).willReturn(firstMessage, secondMessage);
+		given(templateRenderer.renderLowMedications(medications)).willReturn("<p>BUP</p>");
+		willThrow(new MailSendException(Map.<Object, Exception>of(secondMessage, new MessagingException("Mailbox unavailable"))))
+			.given(javaMailSender).send(any(MimeMessage[].class));
+		
+		List<EmailDeliveryResult> results = emailService.sendLowMedicationsNotifications(List.of(
+				new LowMedicationNotification("first@email.com", medications),
+				new LowMedicationNotification("second@email.com", medications)));
+		
+		assertEquals(EmailDeliveryResult.sent("first@email.com"), results.get(0));
+		assertEquals(EmailDeliveryResult.failed("second@email.com", "Mailbox unavailable"), results.get(1));
+	}
+
+}
@@ -0,0 +1,59 @@
+package prescription.tracker.test.email;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import prescription.tracker.email.EmailTemplateRenderer;
+import prescription.tracker.medication.Medication;
+import prescription.tracker.test.support.EmailTemplates;
+
+public class EmailTemplateRendererTest {
+	
+	private EmailTemplateRenderer templateRenderer;
+	
+	@BeforeEach
+	public void setUp() {
+		templateRenderer = new EmailTemplateRenderer(EmailTemplates.templateEngine());
+	}
+	
+	@Test
+	public void shouldRenderConfirmationLinkWithLayout() {
+		
+		String content = templateRenderer.renderConfirmation("http://localhost:8080/api/register/confirm?token=abc");
+		
+		assertTrue(content.contains("href=\"http://localhost:8080/api/register/confirm?token=abc\""));
+		assertTrue(content.contains("Your prescription tracker"));
+		assertTrue(content.contains("Please do not reply to this email."));
+	}
+	
+	@Test
+	public void shouldRenderOneRowPerMedication() {
+		
+		List<Medication> medications = List.of(
+				new Medication(1L, "BUP", 3.4, 30, 2, 2, LocalDate.of(2024, 1, 1), 7, null),
+				new Medication(2L, "PAR", 8.6, 20, 1, 1, LocalDate.of(2024, 1, 1), 7, null));
+		
+		String content = templateRenderer.renderLowMedications(medications);
+		
+		assertTrue(content.contains("<td style=\"padding: 4px 8px;\">BUP</td>"));
+		assertTrue(content.contains("<td style=\"padding: 4px 8px;\">PAR</td>"));
+		assertTrue(content.contains("2024-01-14"));
+		assertTrue(content.contains("Your prescription tracker"));
+	}
+	
+	@Test
+	public void shouldEscapeMedicationNames() {
+		
+		Medication medication = new Medication(1L, "<b>BUP</b>", 3.4, 30, 2, 2, LocalDate.now(), 7, null);
+		
+		String content = templateRenderer.renderLowMedications(List.of(medication));
+		
+		assertTrue(content.contains("&lt;b&gt;BUP&lt;/b&gt;"));
+	}
+
+}
@@ -0,0 +1,74 @@
+package prescription.tracker.test.loadtest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency histogram and error counts of one endpoint, shared by all the load test workers.
+ */
+final class EndpointStats {
+
+	private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final String name;
+	private final Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toNanos(1), 3);
+	private final LongAdder clientErrors = new LongAdder();
+	private final LongAdder serverErrors = new LongAdder();
+
+	EndpointStats(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Records one request.
+	 *
+	 * @param latencyNanos The time from sending the request to reading the whole response.
+	 * @param status       The response status, or -1 if no response was received.
+	 */
+	void record(long latencyNanos, int status) {
+
+		latencies.recordValue(Math.min(latencyNanos, latencies.getHighestTrackableValue()));
+
+		if(status < 0 || status >= 500) {
+			serverErrors.increment();
+		}
+		else if(status >= 400) {
+			clientErrors.increment();
+		}
+	}
+
+	void reset() {
+		latencies.reset();
+		clientErrors.reset();
+		serverErrors.reset();
+	}
+
+	long requests() {
+		return latencies.getTotalCount();
+	}
+
+	long serverErrors() {
+		return serverErrors.sum();
+	}
+
+	static String header() {
+		return String.format("%-22s %9s %9s %7s %7s %9s %9s %9s %9s %9s",
+				"endpoint", "requests", "req/s", "4xx", "5xx", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+	}
+
+	String row(double seconds) {
+		return String.format("%-22s %9d %9.1f %7d %7d %9.2f %9.2f %9.2f %9.2f %9.2f",
+				name, requests(), requests() / seconds, clientErrors.sum(), serverErrors.sum(),
+				millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(90)),
+				millis(latencies.getValueAtPercentile(99)), millis(latencies.getValueAtPercentile(99.9)),
+				millis(latencies.getMaxValue()));
+	}
+
+	private static double millis(long nanos) {
+		return nanos / NANOS_PER_MILLI;
+	}
+
+}
@@ -0,0 +1,250 @@
+package prescription.tracker.test.loadtest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+
+import prescription.tracker.medication.Medication;
+import prescription.tracker.user.User;
+import prescription.tracker.user.UserRepository;
+
+/**
+ * Replays a read-heavy request mix over HTTP against the full application, backed by in-memory
+ * H2 and an in-process SMTP server, and reports latency percentiles and throughput per endpoint.
+ * Runs offline; excluded from the default build, run with {@code mvn test -Ploadtest}.
+ *
+ * <p>Tuned with system properties: {@code loadtest.users} concurrent clients (16),
+ * {@code loadtest.warmup-seconds} (10), {@code loadtest.seconds} measured (30) and
+ * {@code loadtest.seed-users} users with {@code loadtest.medications-per-user} medications each (200, 20).
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+public class HttpLoadTest {
+
+	private static final int CLIENTS = Integer.getInteger("loadtest.users", 16);
+	private static final long WARM_UP_SECONDS = Long.getLong("loadtest.warmup-seconds", 10);
+	private static final long MEASURED_SECONDS = Long.getLong("loadtest.seconds", 30);
+	private static final int SEED_USERS = Integer.getInteger("loadtest.seed-users", 200);
+	private static final int MEDICATIONS_PER_USER = Integer.getInteger("loadtest.medications-per-user", 20);
+
+	@RegisterExtension
+	static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP).withPerMethodLifecycle(false);
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+	private List<Long> userIds = new ArrayList<>();
+	private List<Long> medIds = new ArrayList<>();
+	private AtomicLong registrations = new AtomicLong();
+	private List<Endpoint> mix;
+	private int totalWeight;
+	// Subclasses run against their own application context but may share the in-memory database.
+	private String runName = getClass().getSimpleName().toLowerCase(Locale.ROOT);
+
+	/**
+	 * One kind of request and its share of the mix.
+	 */
+	private record Endpoint(EndpointStats stats, int weight, Function<ThreadLocalRandom, HttpRequest> request) {
+	}
+
+	@BeforeEach
+	public void setUp() {
+
+		seed();
+
+		// Mostly reads, as the mobile clients behave: listings, single lookups and a few updates and sign-ups.
+		mix = List.of(
+				new Endpoint(new EndpointStats("GET medications"), 30, random ->
+						get("/api/medication/get/" + any(userIds, random))),
+				new Endpoint(new EndpointStats("GET medication"), 25, random ->
+						get("/api/medication/" + any(medIds, random))),
+				new Endpoint(new EndpointStats("GET user"), 20, random ->
+						get("/api/user/" + any(userIds, random))),
+				new Endpoint(new EndpointStats("GET medication page"), 10, random ->
+						get("/api/medication/page/" + any(userIds, random) + "?size=10")),
+				new Endpoint(new EndpointStats("PATCH medication"), 10, random ->
+						send("/api/medication/" + any(medIds, random), "PATCH", "application/merge-patch+json",
+								"{\"refills\":" + random.nextInt(1, 5) + "}")),
+				new Endpoint(new EndpointStats("POST register"), 5, random ->
+						send("/api/register", "POST", "application/json",
+								"{\"email\":\"" + runName + registrations.incrementAndGet() + "@email.com\",\"password\":\"password123\"}")));
+
+		totalWeight = mix.stream().mapToInt(Endpoint::weight).sum();
+	}
+
+	@Test
+	public void replayReadHeavyMix() throws Exception {
+
+		run(WARM_UP_SECONDS);
+		mix.forEach(endpoint -> endpoint.stats().reset());
+
+		long start = System.nanoTime();
+		run(MEASURED_SECONDS);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		List<String> report = new ArrayList<>();
+		report.add(String.format("%s: %d clients, %.1f s measured after %d s warm-up, %d users with %d medications each",
+				runName, CLIENTS, seconds, WARM_UP_SECONDS, SEED_USERS, MEDICATIONS_PER_USER));
+		report.add(EndpointStats.header());
+		mix.forEach(endpoint -> report.add(endpoint.stats().row(seconds)));
+
+		long total = mix.stream().mapToLong(endpoint -> endpoint.stats().requests()).sum();
+		report.add(String.format("total %d requests, %.1f req/s, %d confirmation emails received",
+				total, total / seconds, greenMail.getReceivedMessages().length));
+
+		report.forEach(System.out::println);
+		Path reportFile = Path.of("target", "loadtest-report-" + runName + ".txt");
+		Files.createDirectories(reportFile.getParent());
+		Files.write(reportFile, report);
+
+		assertTrue(total > 0);
+		mix.forEach(endpoint -> assertEquals(0, endpoint.stats().serverErrors(), endpoint.stats().row(seconds)));
+	}
+
+	/**
+	 * Runs the mix from every client for the given time; each client sends its next request as
+	 * soon as the previous response is read.
+	 */
+	private void run(long seconds) throws Exception {
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+
+		try {
+			List<Future<?>> running = new ArrayList<>();
+
+			for(int i = 0; i < CLIENTS; i++) {
+				running.add(clients.submit(() -> {
+					while(System.nanoTime() < deadline) {
+						sendNext(ThreadLocalRandom.current());
+					}
+				}));
+			}
+
+			for(Future<?> client : running) {
+				client.get();
+			}
+		}
+		finally {
+			clients.shutdownNow();
+		}
+	}
+
+	private void sendNext(ThreadLocalRandom random) {
+
+		Endpoint endpoint = pick(random);
+		HttpRequest request = endpoint.request().apply(random);
+		long start = System.nanoTime();
+		int status;
+
+		try {
+			status = httpClient.send(request, BodyHandlers.discarding()).statusCode();
+		}
+		catch(IOException ex) {
+			status = -1;
+		}
+		catch(InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+
+		endpoint.stats().record(System.nanoTime() - start, status);
+	}
+
+	private Endpoint pick(ThreadLocalRandom random) {
+
+		int ticket = random.nextInt(totalWeight);
+
+		for(Endpoint endpoint : mix) {
+			ticket -= endpoint.weight();
+
+			if(ticket < 0) {
+				return endpoint;
+			}
+		}
+
+		throw new IllegalStateException("Empty request mix");
+	}
+
+	private void seed() {
+
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+		for(int u = 0; u < SEED_USERS; u++) {
+			User user = new User();
+			user.setEmail(runName + "-seed" + u + "@email.com");
+			user.setPassword("password");
+			user.setEnabled(true);
+
+			for(int m = 0; m < MEDICATIONS_PER_USER; m++) {
+				user.addMedication(new Medication(null, "MED" + m, 1.0, 60, 2, 1, LocalDate.now(), 7, null));
+			}
+
+			User saved = transactionTemplate.execute(status -> userRepository.save(user));
+
+			userIds.add(saved.getUserId());
+			saved.getMedications().forEach(medication -> medIds.add(medication.getMedId()));
+		}
+	}
+
+	private HttpRequest get(String path) {
+		return HttpRequest.newBuilder(uri(path)).GET().build();
+	}
+
+	private HttpRequest send(String path, String method, String contentType, String body) {
+		return HttpRequest.newBuilder(uri(path))
+				.header("Content-Type", contentType)
+				.method(method, BodyPublishers.ofString(body))
+				.build();
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + port + path);
+	}
+
+	private static long any(List<Long> ids, ThreadLocalRandom random) {
+		return ids.get(random.nextInt(ids.size()));
+	}
+
+}
@@ -0,0 +1,17 @@
+package prescription.tracker.test.loadtest;
+
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Replays the same mix in the virtual thread mode. Both runs are part of {@code mvn test -Ploadtest};
+ * comparing {@code target/loadtest-report-httploadtest.txt} with
+ * {@code target/loadtest-report-virtualthreadhttploadtest.txt} shows the throughput and latency
+ * difference against platform threads. Raise {@code loadtest.users} well above the Tomcat worker
+ * count to see it.
+ */
+@EnabledIf("prescription.tracker.util.VirtualThreads#isSupported")
+@ActiveProfiles("virtual")
+public class VirtualThreadHttpLoadTest extends HttpLoadTest {
+
+}
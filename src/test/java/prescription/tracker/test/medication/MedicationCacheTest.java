@@ -0,0 +1,154 @@
+package prescription.tracker.test.medication;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import prescription.tracker.configuration.CacheConfiguration;
+import prescription.tracker.medication.Medication;
+import prescription.tracker.medication.MedicationEventRequest;
+import prescription.tracker.medication.MedicationEventType;
+import prescription.tracker.medication.MedicationImportService;
+import prescription.tracker.medication.MedicationLedgerService;
+import prescription.tracker.medication.MedicationPatch;
+import prescription.tracker.medication.MedicationService;
+import prescription.tracker.user.User;
+import prescription.tracker.user.UserRepository;
+import prescription.tracker.util.StatementTracker;
+
+/**
+ * Runs against the real lookup caches, so a write that evicts more than its owner's
+ * medication list fails here.
+ */
+@SpringBootTest
+public class MedicationCacheTest {
+
+	@Autowired
+	private MedicationService medicationService;
+
+	@Autowired
+	private MedicationLedgerService ledgerService;
+
+	@Autowired
+	private MedicationImportService importService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	private Cache userMedications;
+	private User owner;
+	private long otherUserId;
+	private Long medId;
+
+	@BeforeEach
+	public void setUp() {
+
+		userMedications = cacheManager.getCache(CacheConfiguration.USER_MEDICATIONS);
+
+		owner = userRepository.save(user("owner@email.com", "BUP"));
+		otherUserId = userRepository.save(user("other@email.com", "PAR")).getUserId();
+		medId = owner.getMedications().get(0).getMedId();
+
+		medicationService.getUserMedication(owner.getUserId());
+		medicationService.getUserMedication(otherUserId);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		userRepository.deleteById(owner.getUserId());
+		userRepository.deleteById(otherUserId);
+		userMedications.clear();
+		cacheManager.getCache(CacheConfiguration.MEDICATIONS).clear();
+	}
+
+	@Test
+	public void shouldKeepOtherUsersMedicationsOnDose() {
+
+		ledgerService.recordEvent(medId, new MedicationEventRequest(MedicationEventType.DOSE, 1, null));
+
+		assertOnlyOwnerEvicted();
+	}
+
+	@Test
+	public void shouldKeepOtherUsersMedicationsOnUpdate() {
+
+		medicationService.updateMedication(
+				new Medication(medId, "BUP", 5.0, 30, 2, 2, LocalDate.now(), 7, owner), null);
+
+		assertOnlyOwnerEvicted();
+	}
+
+	@Test
+	public void shouldKeepOtherUsersMedicationsOnPatch() {
+
+		medicationService.patchMedication(medId, new MedicationPatch(null, 5.0, null, null, null, null, null), null);
+
+		assertOnlyOwnerEvicted();
+	}
+
+	@Test
+	public void shouldKeepOtherUsersMedicationsOnDelete() {
+
+		medicationService.deleteMedication(medId);
+
+		assertOnlyOwnerEvicted();
+	}
+
+	@Test
+	public void shouldDeleteWithOneStatementWhenMedicationIsNotCached() {
+
+		assertNull(cacheManager.getCache(CacheConfiguration.MEDICATIONS).get(medId));
+
+		StatementTracker tracker = StatementTracker.start();
+		try {
+			medicationService.deleteMedication(medId);
+		} finally {
+			StatementTracker.stop();
+		}
+
+		assertEquals(1, tracker.getStatements());
+		assertOnlyOwnerEvicted();
+	}
+
+	@Test
+	public void shouldEvictOwnersMedicationsOnImport() throws IOException {
+
+		importService.importCsv(owner.getUserId(), new ByteArrayInputStream((
+				"name,dosage,quantity,refills,timesPerDay,lastRefilled,reminderDays\n"
+				+ "IBU,2.0,30,0,2,2023-10-01,7\n").getBytes(StandardCharsets.UTF_8)));
+
+		assertOnlyOwnerEvicted();
+		assertEquals(2, medicationService.getUserMedication(owner.getUserId()).size());
+	}
+
+	private void assertOnlyOwnerEvicted() {
+		assertNull(userMedications.get(owner.getUserId()));
+		assertNotNull(userMedications.get(otherUserId));
+	}
+
+	private static User user(String email, String medication) {
+
+		User user = new User();
+		user.setEmail(email);
+		user.setPassword("password");
+		user.setEnabled(true);
+		user.addMedication(new Medication(null, medication, 3.4, 30, 2, 2, LocalDate.now(), 7, null));
+
+		return user;
+	}
+
+}
@@ -0,0 +1,168 @@
+package prescription.tracker.test.medication;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import jakarta.persistence.EntityManager;
+import prescription.tracker.exception.UserNotFoundException;
+import prescription.tracker.medication.Medication;
+import prescription.tracker.medication.MedicationCaches;
+import prescription.tracker.medication.MedicationImportError;
+import prescription.tracker.medication.MedicationImportResult;
+import prescription.tracker.medication.MedicationImportService;
+import prescription.tracker.user.User;
+import prescription.tracker.user.UserRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class MedicationImportServiceTest {
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	@Mock
+	private EntityManager entityManager;
+
+	@Mock
+	private UserRepository userRepository;
+
+	@Mock
+	private MedicationCaches medicationCaches;
+
+	private MedicationImportService importService;
+	private User user;
+
+	@BeforeEach
+	public void setUp() {
+		importService = new MedicationImportService(transactionTemplate, entityManager, userRepository, medicationCaches,
+				JsonMapper.builder().findAndAddModules().build(), 2, 10);
+
+		user = new User(2L, "email@email.com", "password", true, List.of());
+	}
+
+	@Test
+	public void shouldImportCsvInChunks() throws IOException {
+
+		givenUserExists();
+
+		MedicationImportResult result = importService.importCsv(2L, input(
+				"name,dosage,quantity,refills,timesPerDay,lastRefilled,reminderDays\n"
+				+ "BUP,3.4,30,2,2,2023-10-01,7\n"
+				+ "\"PAR, extra strength\",8.6,20,1,1,,7\n"
+				+ "IBU,2.0,30,0,2,2023-10-01,7\n"));
+
+		assertEquals(new MedicationImportResult(3, 0, List.of()), result);
+
+		ArgumentCaptor<Medication> persisted = ArgumentCaptor.forClass(Medication.class);
+		verify(entityManager, times(3)).persist(persisted.capture());
+		verify(entityManager, times(2)).flush();
+		verify(entityManager, times(2)).clear();
+		verify(medicationCaches, times(2)).evictUserMedications(2L);
+
+		Medication second = persisted.getAllValues().get(1);
+		assertEquals("PAR, extra strength", second.getName());
+		assertEquals(LocalDate.now(), second.getLastRefilled());
+		assertSame(user, second.getUser());
+	}
+
+	@Test
+	public void shouldReportInvalidCsvRows() throws IOException {
+
+		givenUserExists();
+
+		MedicationImportResult result = importService.importCsv(2L, input(
+				"reminderDays,name,dosage,quantity,refills,timesPerDay,lastRefilled\n"
+				+ "7,BUP,3.4,30,2,2,2023-10-01\n"
+				+ "7,,3.4,30,2,2,2023-10-01\n"
+				+ "7,PAR,many,20,1,1,2023-10-01\n"
+				+ "7,IBU,2.0,30,0,2,yesterday\n"));
+
+		assertEquals(1, result.imported());
+		assertEquals(3, result.failed());
+		assertEquals(List.of(3L, 4L, 5L), result.errors().stream().map(MedicationImportError::line).toList());
+		assertEquals("Invalid medication name", result.errors().get(0).message());
+
+		verify(entityManager).persist(any(Medication.class));
+	}
+
+	@Test
+	public void shouldRejectCsvWithoutRequiredColumns() throws IOException {
+
+		given(userRepository.existsById(2L)).willReturn(true);
+
+		MedicationImportResult result = importService.importCsv(2L, input("name,dosage\nBUP,3.4\n"));
+
+		assertEquals(0, result.imported());
+		assertEquals(1, result.errors().get(0).line());
+
+		verify(transactionTemplate, never()).executeWithoutResult(any());
+	}
+
+	@Test
+	public void shouldImportNdjson() throws IOException {
+
+		givenUserExists();
+
+		MedicationImportResult result = importService.importNdjson(2L, input(
+				"{\"name\":\"BUP\",\"dosage\":3.4,\"quantity\":30,\"refills\":2,\"timesPerDay\":2,"
+				+ "\"lastRefilled\":\"2023-10-01\",\"reminderDays\":7}\n"
+				+ "{\"name\":\"PAR\",\"dosage\":-1,\"quantity\":20,\"refills\":1,\"timesPerDay\":1,\"reminderDays\":7}\n"
+				+ "not json\n"));
+
+		assertEquals(1, result.imported());
+		assertEquals(2, result.failed());
+		assertEquals(new MedicationImportError(2, "Dosage should be positive"), result.errors().get(0));
+		assertEquals(3, result.errors().get(1).line());
+
+		verify(entityManager).persist(any(Medication.class));
+	}
+
+	@Test
+	public void shouldFailImportForMissingUser() {
+
+		given(userRepository.existsById(2L)).willReturn(false);
+
+		assertThrows(UserNotFoundException.class, () ->
+				importService.importCsv(2L, input("name,dosage\n")));
+	}
+
+	private void givenUserExists() {
+
+		given(userRepository.existsById(2L)).willReturn(true);
+		given(entityManager.getReference(User.class, 2L)).willReturn(user);
+
+		doAnswer(invocation -> {
+			Consumer<TransactionStatus> action = invocation.getArgument(0);
+			action.accept(null);
+			return null;
+		}).when(transactionTemplate).executeWithoutResult(any());
+	}
+
+	private static InputStream input(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
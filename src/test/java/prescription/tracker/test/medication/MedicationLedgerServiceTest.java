@@ -0,0 +1,141 @@
+package prescription.tracker.test.medication;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import prescription.tracker.exception.InvalidMedicationEventException;
+import prescription.tracker.exception.InvalidPageRequestException;
+import prescription.tracker.exception.MedicationNotFoundException;
+import prescription.tracker.medication.Medication;
+import prescription.tracker.medication.MedicationCaches;
+import prescription.tracker.medication.MedicationEvent;
+import prescription.tracker.medication.MedicationEventRepository;
+import prescription.tracker.medication.MedicationEventRequest;
+import prescription.tracker.medication.MedicationEventType;
+import prescription.tracker.medication.MedicationEventView;
+import prescription.tracker.medication.MedicationLedgerService;
+import prescription.tracker.medication.MedicationRepository;
+import prescription.tracker.medication.MedicationView;
+
+@ExtendWith(MockitoExtension.class)
+public class MedicationLedgerServiceTest {
+	
+	private static final LocalDateTime NOW = LocalDateTime.now();
+	
+	@Mock
+	private MedicationRepository medicationRepository;
+	
+	@Mock
+	private MedicationEventRepository eventRepository;
+	
+	@Mock
+	private MedicationCaches medicationCaches;
+	
+	@InjectMocks
+	private MedicationLedgerService ledgerService;
+	
+	@Test
+	public void shouldRecordDoseAndReturnBalance() {
+		
+		Medication medication = new Medication(1L, "BUP", 3.4, 30, 2, 2, LocalDate.now(), 7, null);
+		
+		given(medicationRepository.adjustOnHand(1L, -2)).willReturn(1);
+		given(medicationRepository.findViewByMedId(1L)).willReturn(Optional.of(view(28)));
+		given(medicationRepository.getReferenceById(1L)).willReturn(medication);
+		given(eventRepository.save(any(MedicationEvent.class))).willAnswer(invocation -> invocation.getArgument(0));
+		
+		MedicationEventView event = ledgerService.recordEvent(1L, new MedicationEventRequest(MedicationEventType.DOSE, 2, NOW));
+		
+		assertEquals(MedicationEventType.DOSE, event.type());
+		assertEquals(2, event.amount());
+		assertEquals(28, event.balanceAfter());
+		assertEquals(NOW, event.occurredAt());
+		
+		ArgumentCaptor<MedicationEvent> saved = ArgumentCaptor.forClass(MedicationEvent.class);
+		verify(eventRepository).save(saved.capture());
+		assertSame(medication, saved.getValue().getMedication());
+		
+		verify(medicationCaches).evict(1L, 2L);
+	}
+	
+	@Test
+	public void shouldAddRefillToBalance() {
+		
+		given(medicationRepository.adjustOnHand(1L, 30)).willReturn(1);
+		given(medicationRepository.findViewByMedId(1L)).willReturn(Optional.of(view(40)));
+		given(eventRepository.save(any(MedicationEvent.class))).willAnswer(invocation -> invocation.getArgument(0));
+		
+		MedicationEventView event = ledgerService.recordEvent(1L, new MedicationEventRequest(MedicationEventType.REFILL, 30, null));
+		
+		assertEquals(40, event.balanceAfter());
+		assertNotNull(event.occurredAt());
+	}
+	
+	@Test
+	public void shouldFailDoseExceedingBalance() {
+		
+		given(medicationRepository.adjustOnHand(1L, -5)).willReturn(0);
+		given(medicationRepository.findOnHandByMedId(1L)).willReturn(Optional.of(3));
+		
+		assertThrows(InvalidMedicationEventException.class, () ->
+				ledgerService.recordEvent(1L, new MedicationEventRequest(MedicationEventType.DOSE, 5, NOW)));
+		
+		verify(eventRepository, never()).save(any());
+	}
+	
+	@Test
+	public void shouldFailEventForNonExistentMedication() {
+		
+		given(medicationRepository.adjustOnHand(1L, -1)).willReturn(0);
+		given(medicationRepository.findOnHandByMedId(1L)).willReturn(Optional.empty());
+		
+		assertThrows(MedicationNotFoundException.class, () ->
+				ledgerService.recordEvent(1L, new MedicationEventRequest(MedicationEventType.DOSE, 1, NOW)));
+	}
+	
+	@Test
+	public void shouldFailInvalidEvent() {
+		
+		assertThrows(InvalidMedicationEventException.class, () ->
+				ledgerService.recordEvent(1L, new MedicationEventRequest(MedicationEventType.DOSE, 0, NOW)));
+		assertThrows(InvalidMedicationEventException.class, () ->
+				ledgerService.recordEvent(1L, new MedicationEventRequest(null, 1, NOW)));
+		
+		verify(medicationRepository, never()).adjustOnHand(anyLong(), anyInt());
+	}
+	
+	@Test
+	public void shouldPageEventsNewestFirst() {
+		
+		List<MedicationEventView> page = List.of(new MedicationEventView(7L, 1L, MedicationEventType.DOSE, 1, 20, NOW));
+		given(eventRepository.findByMedIdBefore(1L, 8L, PageRequest.of(0, 10))).willReturn(page);
+		
+		assertEquals(page, ledgerService.getEvents(1L, 8L, 10));
+		
+		assertThrows(InvalidPageRequestException.class, () ->
+				ledgerService.getEvents(1L, null, 101));
+	}
+	
+	private static MedicationView view(int onHand) {
+		return new MedicationView(1L, "BUP", 3.4, 30, 2, 2, LocalDate.now(), 7, null, 2L, onHand, 1L);
+	}
+
+}
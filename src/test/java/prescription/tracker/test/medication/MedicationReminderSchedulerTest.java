@@ -0,0 +1,81 @@
+package prescription.tracker.test.medication;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import prescription.tracker.email.EmailDeliveryResult;
+import prescription.tracker.email.EmailService;
+import prescription.tracker.email.LowMedicationNotification;
+import prescription.tracker.medication.Medication;
+import prescription.tracker.medication.MedicationReminderScheduler;
+import prescription.tracker.medication.MedicationRepository;
+import prescription.tracker.user.User;
+
+@ExtendWith(MockitoExtension.class)
+public class MedicationReminderSchedulerTest {
+
+	private static final LocalDate TODAY = LocalDate.now();
+
+	@Mock
+	private MedicationRepository medicationRepository;
+
+	@Mock
+	private EmailService emailService;
+
+	@InjectMocks
+	private MedicationReminderScheduler reminderScheduler;
+
+	@Test
+	public void shouldSendOneNotificationPerUser() {
+
+		User user1 = new User(1L, "first@email.com", "password", true, Collections.emptyList());
+		User user2 = new User(2L, "second@email.com", "password", true, Collections.emptyList());
+
+		Medication med1 = new Medication(1L, "BUP", 3.4, 30, 2, 2, TODAY, 7, user1);
+		Medication med2 = new Medication(2L, "PAR", 8.6, 20, 1, 1, TODAY, 7, user1);
+		Medication med3 = new Medication(3L, "IBU", 2.0, 30, 0, 2, TODAY, 7, user2);
+
+		List<LowMedicationNotification> expected = List.of(
+				new LowMedicationNotification("first@email.com", List.of(med1, med2)),
+				new LowMedicationNotification("second@email.com", List.of(med3)));
+
+		given(medicationRepository.findDueReminders(eq(TODAY), eq(0L), eq(0L), any()))
+			.willReturn(List.of(med1, med2, med3));
+		given(emailService.sendLowMedicationsNotifications(expected))
+			.willReturn(List.of(EmailDeliveryResult.sent("first@email.com"),
+					EmailDeliveryResult.failed("second@email.com", "Mailbox unavailable")));
+
+		int notifiedUsers = reminderScheduler.sendReminders(TODAY);
+
+		assertEquals(1, notifiedUsers);
+
+		verify(emailService).sendLowMedicationsNotifications(expected);
+	}
+
+	@Test
+	public void shouldNotSendEmailsWhenNothingIsDue() {
+
+		given(medicationRepository.findDueReminders(eq(TODAY), eq(0L), eq(0L), any()))
+			.willReturn(Collections.emptyList());
+
+		assertEquals(0, reminderScheduler.sendReminders(TODAY));
+
+		verify(emailService, never()).sendLowMedicationsNotifications(anyList());
+	}
+
+}
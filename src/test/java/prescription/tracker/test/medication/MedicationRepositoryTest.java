@@ -1,15 +1,27 @@
 package prescription.tracker.test.medication;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.PageRequest;
 import prescription.tracker.user.User;
 import prescription.tracker.medication.Medication;
+import prescription.tracker.medication.MedicationCaches;
+import prescription.tracker.medication.MedicationPage;
+import prescription.tracker.medication.MedicationPatch;
 import prescription.tracker.medication.MedicationRepository;
+import prescription.tracker.medication.MedicationService;
+import prescription.tracker.medication.MedicationSort;
+import prescription.tracker.medication.MedicationView;
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
@@ -93,5 +105,341 @@ public class MedicationRepositoryTest {
 		
 		assertTrue(medicationRepository.findAllByUserId(1L).get().isEmpty());
 	}
+	
+	@Test
+	public void shouldFindDueRemindersInKeysetPages() {
+		
+		User user = new User();
+		user.setEmail("email@email.com");
+		user.setPassword("password");
+		user.setEnabled(true);
+		
+		// 30 pills, one a day, reminder 30 days ahead: due today.
+		Medication due1 = new Medication(null, "Med1", 1.0, 30, 0, 1, LocalDate.now(), 30, null);
+		Medication due2 = new Medication(null, "Med2", 1.0, 30, 0, 1, LocalDate.now(), 30, null);
+		Medication notDue = new Medication(null, "Med3", 1.0, 30, 0, 1, LocalDate.now(), 0, null);
+		user.addMedication(due1);
+		user.addMedication(due2);
+		user.addMedication(notDue);
+		
+		entityManager.persistAndFlush(user);
+		entityManager.clear();
+		
+		List<Medication> firstPage = medicationRepository
+				.findDueReminders(LocalDate.now(), 0L, 0L, PageRequest.of(0, 1));
+		
+		assertEquals(1, firstPage.size());
+		assertEquals("Med1", firstPage.get(0).getName());
+		assertEquals("email@email.com", firstPage.get(0).getUser().getEmail());
+		
+		Medication last = firstPage.get(0);
+		List<Medication> secondPage = medicationRepository
+				.findDueReminders(LocalDate.now(), user.getUserId(), last.getMedId(), PageRequest.of(0, 1));
+		
+		assertEquals(1, secondPage.size());
+		assertEquals("Med2", secondPage.get(0).getName());
+		
+		assertTrue(medicationRepository.findDueReminders(LocalDate.now(), user.getUserId(),
+				secondPage.get(0).getMedId(), PageRequest.of(0, 1)).isEmpty());
+	}
+	
+	@Test
+	public void shouldStreamMedicationsFromUserIdInOrder() {
+		
+		User user = new User();
+		user.setEmail("email@email.com");
+		user.setPassword("password");
+		user.setEnabled(true);
+		user.addMedication(new Medication(null, "Med1", 1.0, 30, 0, 1, LocalDate.now(), 5, null));
+		user.addMedication(new Medication(null, "Med2", 1.0, 30, 0, 1, LocalDate.now(), 5, null));
+		
+		entityManager.persistAndFlush(user);
+		entityManager.clear();
+		
+		try(Stream<MedicationView> medications = medicationRepository.streamAllViewsByUserId(user.getUserId())) {
+			
+			assertEquals(List.of("Med1", "Med2"),
+					medications.map(MedicationView::name).collect(Collectors.toList()));
+		}
+	}
+	
+	@Test
+	public void shouldFindViewsFromUserId() {
+		
+		User user = new User();
+		user.setEmail("email@email.com");
+		user.setPassword("password");
+		user.setEnabled(true);
+		user.addMedication(new Medication(null, "Med1", 1.5, 30, 2, 1, LocalDate.now(), 5, null));
+		
+		entityManager.persistAndFlush(user);
+		entityManager.clear();
+		
+		List<MedicationView> views = medicationRepository.findAllViewsByUserId(user.getUserId()).orElse(null);
+		
+		assertNotNull(views);
+		assertEquals(1, views.size());
+		
+		MedicationView view = views.get(0);
+		assertEquals("Med1", view.name());
+		assertEquals(1.5, view.dosage());
+		assertEquals(30, view.quantity());
+		assertEquals(LocalDate.now().plusDays(25), view.reminderDate());
+		assertEquals(user.getUserId(), view.userId());
+		
+		assertEquals(view, medicationRepository.findViewByMedId(view.medId()).orElse(null));
+	}
+	
+	@Test
+	public void shouldPageThroughMedicationsByReminderDateWithUndatedLast() {
+		
+		User user = new User();
+		user.setEmail("email@email.com");
+		user.setPassword("password");
+		user.setEnabled(true);
+		// Reminder dates: today + 20, today + 10, none (timesPerDay = 0), today + 10, none.
+		user.addMedication(new Medication(null, "A", 1.0, 30, 0, 1, LocalDate.now(), 10, null));
+		user.addMedication(new Medication(null, "B", 1.0, 30, 0, 1, LocalDate.now(), 20, null));
+		user.addMedication(new Medication(null, "C", 1.0, 30, 0, 0, LocalDate.now(), 0, null));
+		user.addMedication(new Medication(null, "D", 1.0, 30, 0, 1, LocalDate.now(), 20, null));
+		user.addMedication(new Medication(null, "E", 1.0, 30, 0, 0, LocalDate.now(), 0, null));
+		
+		entityManager.persistAndFlush(user);
+		entityManager.clear();
+		
+		MedicationService medicationService = new MedicationService(medicationRepository, new MedicationCaches(new ConcurrentMapCacheManager()));
+		List<String> names = new ArrayList<>();
+		String cursor = null;
+		
+		do {
+			MedicationPage page = medicationService
+					.getUserMedicationPage(user.getUserId(), MedicationSort.REMINDER_DATE, 2, cursor);
+			page.medications().forEach(medication -> names.add(medication.name()));
+			cursor = page.nextCursor();
+		} while(cursor != null);
+		
+		assertEquals(List.of("B", "D", "A", "C", "E"), names);
+	}
+	
+	@Test
+	public void shouldPageThroughMedicationsByName() {
+		
+		User user = new User();
+		user.setEmail("email@email.com");
+		user.setPassword("password");
+		user.setEnabled(true);
+		user.addMedication(new Medication(null, "Zinc", 1.0, 30, 0, 1, LocalDate.now(), 10, null));
+		user.addMedication(new Medication(null, "Aspirin", 1.0, 30, 0, 1, LocalDate.now(), 10, null));
+		user.addMedication(new Medication(null, "Aspirin", 2.0, 30, 0, 1, LocalDate.now(), 10, null));
+		
+		entityManager.persistAndFlush(user);
+		entityManager.clear();
+		
+		MedicationService medicationService = new MedicationService(medicationRepository, new MedicationCaches(new ConcurrentMapCacheManager()));
+		
+		MedicationPage first = medicationService.getUserMedicationPage(user.getUserId(), MedicationSort.NAME, 2, null);
+		MedicationPage second = medicationService
+				.getUserMedicationPage(user.getUserId(), MedicationSort.NAME, 2, first.nextCursor());
+		
+		assertEquals(2, first.medications().size());
+		assertEquals("Aspirin", first.medications().get(0).name());
+		assertEquals(1.0, first.medications().get(0).dosage());
+		assertEquals(2.0, first.medications().get(1).dosage());
+		
+		assertEquals(1, second.medications().size());
+		assertEquals("Zinc", second.medications().get(0).name());
+		assertNull(second.nextCursor());
+	}
+	
+	@Test
+	public void shouldUpdateMedicationWithoutLoadingIt() {
+		
+		User user = new User();
+		user.setEmail("email@email.com");
+		user.setPassword("password");
+		user.setEnabled(true);
+		user.addMedication(new Medication(null, "Med1", 1.0, 30, 0, 1, LocalDate.now(), 5, null));
+		
+		entityManager.persistAndFlush(user);
+		entityManager.clear();
+		
+		Long medId = medicationRepository.findAllViewsByUserId(user.getUserId()).get().get(0).medId();
+		Medication update = new Medication(medId, "Med2", 2.0, 60, 1, 2, LocalDate.now(), 10, user);
+		
+		assertEquals(1, medicationRepository.updateMedication(update));
+		
+		MedicationView updated = medicationRepository.findViewByMedId(medId).get();
+		assertEquals("Med2", updated.name());
+		assertEquals(60, updated.quantity());
+		assertEquals(update.getReminderDate(), updated.reminderDate());
+		assertEquals(1L, updated.version());
+		
+		Medication missing = new Medication(medId + 1000, "Med2", 2.0, 60, 1, 2, LocalDate.now(), 10, user);
+		assertEquals(0, medicationRepository.updateMedication(missing));
+	}
+	
+	@Test
+	public void shouldUpdateMedicationOnlyAtExpectedVersion() {
+		
+		User user = new User();
+		user.setEmail("email@email.com");
+		user.setPassword("password");
+		user.setEnabled(true);
+		user.addMedication(new Medication(null, "Med1", 1.0, 30, 0, 1, LocalDate.now(), 5, null));
+		
+		entityManager.persistAndFlush(user);
+		entityManager.clear();
+		
+		MedicationView stored = medicationRepository.findAllViewsByUserId(user.getUserId()).get().get(0);
+		assertEquals(0L, stored.version());
+		
+		Medication first = new Medication(stored.medId(), "Med2", 1.0, 30, 0, 1, LocalDate.now(), 5, user);
+		Medication second = new Medication(stored.medId(), "Med3", 1.0, 30, 0, 1, LocalDate.now(), 5, user);
+		
+		// Both clients read version 0; only the first write applies.
+		assertEquals(1, medicationRepository.updateMedicationIfVersion(first, 0L));
+		assertEquals(0, medicationRepository.updateMedicationIfVersion(second, 0L));
+		
+		MedicationView current = medicationRepository.findViewByMedId(stored.medId()).get();
+		assertEquals("Med2", current.name());
+		assertEquals(1L, current.version());
+	}
+	
+	@Test
+	public void shouldUpdateOwnedMedicationOnlyForItsOwner() {
+		
+		User user = new User();
+		user.setEmail("email@email.com");
+		user.setPassword("password");
+		user.setEnabled(true);
+		user.addMedication(new Medication(null, "Med1", 1.0, 30, 0, 1, LocalDate.now(), 5, null));
+		
+		User other = new User();
+		other.setEmail("other@email.com");
+		other.setPassword("password");
+		other.setEnabled(true);
+		
+		entityManager.persist(other);
+		entityManager.persistAndFlush(user);
+		entityManager.clear();
+		
+		Long medId = medicationRepository.findAllViewsByUserId(user.getUserId()).get().get(0).medId();
+		
+		// Naming another owner does not match, so a move is left to the unguarded update.
+		assertEquals(0, medicationRepository.updateOwnedMedication(
+				new Medication(medId, "Med2", 1.0, 30, 0, 1, LocalDate.now(), 5, other)));
+		assertEquals(0, medicationRepository.updateOwnedMedicationIfVersion(
+				new Medication(medId, "Med2", 1.0, 30, 0, 1, LocalDate.now(), 5, user), 1L));
+		assertEquals(1, medicationRepository.updateOwnedMedicationIfVersion(
+				new Medication(medId, "Med2", 1.0, 30, 0, 1, LocalDate.now(), 5, user), 0L));
+		assertEquals(1, medicationRepository.updateOwnedMedication(
+				new Medication(medId, "Med3", 1.0, 30, 0, 1, LocalDate.now(), 5, user)));
+		
+		MedicationView current = medicationRepository.findViewByMedId(medId).get();
+		assertEquals("Med3", current.name());
+		assertEquals(user.getUserId(), current.userId());
+		assertEquals(2L, current.version());
+	}
+	
+	@Test
+	public void shouldAdjustOnHandWithoutGoingNegative() {
+		
+		User user = new User();
+		user.setEmail("email@email.com");
+		user.setPassword("password");
+		user.setEnabled(true);
+		user.addMedication(new Medication(null, "Med1", 1.0, 30, 0, 1, LocalDate.now(), 5, null));
+		
+		entityManager.persistAndFlush(user);
+		entityManager.clear();
+		
+		Long medId = medicationRepository.findAllViewsByUserId(user.getUserId()).get().get(0).medId();
+		
+		assertEquals(30, medicationRepository.findOnHandByMedId(medId).get());
+		assertEquals(1, medicationRepository.adjustOnHand(medId, -25));
+		assertEquals(0, medicationRepository.adjustOnHand(medId, -6));
+		assertEquals(1, medicationRepository.adjustOnHand(medId, 10));
+		assertEquals(15, medicationRepository.findOnHandByMedId(medId).get());
+		assertEquals(0, medicationRepository.adjustOnHand(medId + 1000, 1));
+	}
+	
+	@Test
+	public void shouldProjectReminderDateFromOnHand() {
+		
+		User user = new User();
+		user.setEmail("email@email.com");
+		user.setPassword("password");
+		user.setEnabled(true);
+		// One a day with a 5 day reminder: due once 5 are left, 25 days after the refill.
+		user.addMedication(new Medication(null, "Med1", 1.0, 30, 0, 1, LocalDate.now(), 5, null));
+		
+		entityManager.persistAndFlush(user);
+		entityManager.clear();
+		
+		Long medId = medicationRepository.findAllViewsByUserId(user.getUserId()).get().get(0).medId();
+		LocalDate today = LocalDate.now();
+		
+		assertEquals(today.plusDays(25), medicationRepository.findViewByMedId(medId).get().reminderDate());
+		
+		medicationRepository.adjustOnHand(medId, -10);
+		assertEquals(today.plusDays(15), medicationRepository.findViewByMedId(medId).get().reminderDate());
+		
+		// Down to the reminder threshold before the reminder was sent: it goes out tomorrow.
+		medicationRepository.adjustOnHand(medId, -15);
+		assertEquals(today.plusDays(1), medicationRepository.findViewByMedId(medId).get().reminderDate());
+		
+		medicationRepository.adjustOnHand(medId, 30);
+		assertEquals(today.plusDays(30), medicationRepository.findViewByMedId(medId).get().reminderDate());
+	}
+	
+	@Test
+	public void shouldShiftOnHandByQuantityChange() {
+		
+		User user = new User();
+		user.setEmail("email@email.com");
+		user.setPassword("password");
+		user.setEnabled(true);
+		user.addMedication(new Medication(null, "Med1", 1.0, 30, 0, 1, LocalDate.now(), 5, null));
+		
+		entityManager.persistAndFlush(user);
+		entityManager.clear();
+		
+		Long medId = medicationRepository.findAllViewsByUserId(user.getUserId()).get().get(0).medId();
+		medicationRepository.adjustOnHand(medId, -10);
+		
+		// The prescription is corrected from 30 to 40: the 20 left become 30.
+		medicationRepository.updateMedication(new Medication(medId, "Med1", 1.0, 40, 0, 1, LocalDate.now(), 5, user));
+		assertEquals(30, medicationRepository.findOnHandByMedId(medId).get());
+		
+		medicationRepository.updateMedication(new Medication(medId, "Med1", 1.0, 5, 0, 1, LocalDate.now(), 5, user));
+		assertEquals(0, medicationRepository.findOnHandByMedId(medId).get());
+		
+		// A patch of the loaded medication shifts it the same way.
+		Medication loaded = medicationRepository.findById(medId).get();
+		loaded.applyPatch(new MedicationPatch(null, null, 12, null, null, null, null));
+		entityManager.flush();
+		entityManager.clear();
+		
+		assertEquals(7, medicationRepository.findOnHandByMedId(medId).get());
+	}
+	
+	@Test
+	public void shouldDeleteMedicationByIdAndReturnOwner() {
+		
+		User user = new User();
+		user.setEmail("email@email.com");
+		user.setPassword("password");
+		user.setEnabled(true);
+		user.addMedication(new Medication(null, "Med1", 1.0, 30, 0, 1, LocalDate.now(), 5, null));
+		
+		entityManager.persistAndFlush(user);
+		entityManager.clear();
+		
+		Long medId = medicationRepository.findAllViewsByUserId(user.getUserId()).get().get(0).medId();
+		
+		assertEquals(List.of(user.getUserId()), medicationRepository.deleteByMedIdReturningOwner(medId));
+		assertEquals(List.of(), medicationRepository.deleteByMedIdReturningOwner(medId));
+		assertTrue(medicationRepository.findViewByMedId(medId).isEmpty());
+	}
 
 }
@@ -1,13 +1,18 @@
 package prescription.tracker.test.medication;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,12 +20,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import prescription.tracker.exception.DuplicateMedicationException;
+import prescription.tracker.exception.InvalidPageRequestException;
 import prescription.tracker.exception.MedicationNotFoundException;
+import prescription.tracker.exception.MedicationVersionConflictException;
+import prescription.tracker.exception.UserNotFoundException;
 import prescription.tracker.medication.Medication;
+import prescription.tracker.medication.MedicationCaches;
 import prescription.tracker.medication.MedicationRepository;
+import prescription.tracker.medication.MedicationPage;
+import prescription.tracker.medication.MedicationPatch;
 import prescription.tracker.medication.MedicationService;
+import prescription.tracker.medication.MedicationSort;
+import prescription.tracker.medication.MedicationView;
 import prescription.tracker.user.User;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +43,9 @@ public class MedicationServiceTest {
 	@Mock
 	private MedicationRepository medicationRepository;
 	
+	@Mock
+	private MedicationCaches medicationCaches;
+	
 	@InjectMocks
 	private MedicationService medicationService;
 	
@@ -45,52 +62,62 @@ public class MedicationServiceTest {
 	@Test
 	public void shouldAddMedication() {
 
-		given(medicationRepository.findById(1L)).willReturn(Optional.of(medication));
-		given(medicationRepository.save(medication)).willReturn(medication);
+		Medication newMed = new Medication(null, "BUP", 3.4, 30, 2, 2, LocalDate.now(), 7, user);
+		given(medicationRepository.saveAndFlush(newMed)).willReturn(newMed);
 		
-		medicationService.addMedication(medication);
+		medicationService.addMedication(newMed);
 		
-		verify(medicationRepository).findById(1L);
-		verify(medicationRepository).save(medication);
+		verify(medicationRepository).saveAndFlush(newMed);
+		verify(medicationRepository, never()).findById(any());
+		verify(medicationCaches).evictUserMedications(2L);
 		
 	}
 	
 	@Test
 	public void shouldFailAddingDuplicateMedication() {
 		
-		given(medicationRepository.findById(1L)).willReturn(Optional.empty());
-		
 		Medication duplicateMed = new Medication(1L, "BUP", 3.4, 30, 2, 2, LocalDate.now(), 7, user);
 		
 		assertThrows(DuplicateMedicationException.class, () ->
 				medicationService.addMedication(duplicateMed));
 		
-		verify(medicationRepository).findById(1L);
+		verify(medicationRepository, never()).saveAndFlush(any());
+		
+	}
+	
+	@Test
+	public void shouldFailAddingMedicationForNonExistentUser() {
+		
+		Medication newMed = new Medication(null, "BUP", 3.4, 30, 2, 2, LocalDate.now(), 7, user);
+		given(medicationRepository.saveAndFlush(newMed)).willThrow(new DataIntegrityViolationException("fk_user"));
+		
+		assertThrows(UserNotFoundException.class, () ->
+				medicationService.addMedication(newMed));
 		
 	}
 	
 	@Test
 	public void shouldGetValidMedication() {
 
-		given(medicationRepository.findById(1L)).willReturn(Optional.of(medication));
+		given(medicationRepository.findViewByMedId(1L)).willReturn(Optional.of(MedicationView.from(medication)));
 		
-		Medication med = medicationService.getMedication(1L);
+		MedicationView med = medicationService.getMedication(1L);
 		
-		assertEquals(1L, med.getMedId());
-		assertEquals(medication, med);
+		assertEquals(1L, med.medId());
+		assertEquals(MedicationView.from(medication), med);
 		
-		verify(medicationRepository).findById(1L);
+		verify(medicationRepository).findViewByMedId(1L);
 	}
 	
 	@Test
 	public void shouldFailGetNonExistentMedication(){
 		
-		given(medicationRepository.findById(1L)).willReturn(Optional.empty());
+		given(medicationRepository.findViewByMedId(1L)).willReturn(Optional.empty());
 		
 		assertThrows(MedicationNotFoundException.class, () ->
 				medicationService.getMedication(1L));
 		
-		verify(medicationRepository).findById(1L);
+		verify(medicationRepository).findViewByMedId(1L);
 				
 		
 	}
@@ -98,54 +125,53 @@ public class MedicationServiceTest {
 	@Test
 	public void shouldGetUserMedication() {
 	
-		given(medicationRepository.findAllByUserId(2L))
-					.willReturn(Optional.of(List.of(medication)));
+		given(medicationRepository.findAllViewsByUserId(2L))
+					.willReturn(Optional.of(List.of(MedicationView.from(medication))));
 		
-		List<Medication> med = medicationService.getUserMedication(2L);
+		List<MedicationView> med = medicationService.getUserMedication(2L);
 		
 		assertNotNull(med);
-		assertEquals(1L, med.get(0).getMedId());
+		assertEquals(1L, med.get(0).medId());
+		assertEquals(2L, med.get(0).userId());
 		
-		verify(medicationRepository).findAllByUserId(2L);
+		verify(medicationRepository).findAllViewsByUserId(2L);
 	}
 	
 	@Test
 	public void shouldFailGetNonExistentUserMedication() {
 		
-		given(medicationRepository.findAllByUserId(2L)).willReturn(Optional.empty());
+		given(medicationRepository.findAllViewsByUserId(2L)).willReturn(Optional.empty());
 		
 		assertThrows(MedicationNotFoundException.class, () ->
 					medicationService.getUserMedication(2L));
 		
-		verify(medicationRepository).findAllByUserId(2L);
+		verify(medicationRepository).findAllViewsByUserId(2L);
 		
 	}
 	
 	@Test
 	public void shouldDeleteMedication() {
 		
-		given(medicationRepository.findById(1L)).willReturn(Optional.of(medication));
+		given(medicationRepository.deleteByMedIdReturningOwner(1L)).willReturn(List.of(2L));
 		
-		Medication med = medicationService.deleteMedication(1L);
+		medicationService.deleteMedication(1L);
 		
-		assertNotNull(med);
-		assertEquals(1L, med.getMedId());
-		assertEquals(medication, med);
-		
-		verify(medicationRepository).findById(1L);
-		verify(medicationRepository).deleteById(1L);
+		verify(medicationRepository).deleteByMedIdReturningOwner(1L);
+		verify(medicationRepository, never()).findById(any());
+		verify(medicationRepository, never()).findViewByMedId(any());
+		verify(medicationCaches).evict(1L, 2L);
 	
 	}
 	
 	@Test
 	public void shouldFailDeleteNonExistentMedication() {
 		
-		given(medicationRepository.findById(1L)).willReturn(Optional.empty());
+		given(medicationRepository.deleteByMedIdReturningOwner(1L)).willReturn(List.of());
 		
 		assertThrows(MedicationNotFoundException.class, () ->
 					medicationService.deleteMedication(1L));
 		
-		verify(medicationRepository).findById(1L);
+		verify(medicationRepository).deleteByMedIdReturningOwner(1L);
 	}
 	
 	@Test
@@ -153,42 +179,218 @@ public class MedicationServiceTest {
 	
 		Medication update = new Medication(1L, "PAR", 8.6, 20, 1, 1, LocalDate.now(), 7, user);
 		
-		given(medicationRepository.findById(1L)).willReturn(Optional.of(medication));
+		given(medicationRepository.updateOwnedMedication(update)).willReturn(1);
 		
-		Medication updatedMed = medicationService.updateMedication(update);
+		MedicationView updatedMed = medicationService.updateMedication(update, null);
 		
 		assertNotNull(updatedMed);
-		assertEquals("PAR", updatedMed.getName());
-		assertEquals(8.6, updatedMed.getDosage());
-		assertEquals(20, updatedMed.getQuantity());
-		assertEquals(1, updatedMed.getRefills());
-		assertEquals(1, updatedMed.getTimesPerDay());
-		assertEquals(7, updatedMed.getReminderDays());
-		assertEquals(LocalDate.now(), updatedMed.getLastRefilled());
-		assertEquals(2L, updatedMed.getUser().getUserId());
-		assertEquals(user, updatedMed.getUser());
-		
-		verify(medicationRepository).findById(1L);
+		assertEquals("PAR", updatedMed.name());
+		assertEquals(8.6, updatedMed.dosage());
+		assertEquals(20, updatedMed.quantity());
+		assertEquals(1, updatedMed.refills());
+		assertEquals(1, updatedMed.timesPerDay());
+		assertEquals(7, updatedMed.reminderDays());
+		assertEquals(LocalDate.now(), updatedMed.lastRefilled());
+		assertEquals(LocalDate.now().plusDays(13), updatedMed.reminderDate());
+		assertEquals(2L, updatedMed.userId());
+		
+		verify(medicationRepository).updateOwnedMedication(update);
+		verify(medicationRepository, never()).findById(any());
+		verify(medicationRepository, never()).findViewByMedId(any());
+		verify(medicationCaches).evict(1L, 2L);
 		
 	}
 	
 	@Test
 	public void shouldFailUpdateNonExistentMedication() {
 		
-		given(medicationRepository.findById(2L)).willReturn(Optional.empty());
+		Medication update = new Medication(2L, "BUP", 3.4, 30, 2, 2, LocalDate.now(), 7, user);
+		given(medicationRepository.updateOwnedMedication(update)).willReturn(0);
+		given(medicationRepository.findViewByMedId(2L)).willReturn(Optional.empty());
 		
 		assertThrows(MedicationNotFoundException.class, () ->
-					medicationService
-					.updateMedication(new Medication(2L, "BUP", 3.4, 30, 2, 2, LocalDate.now(), 7, user)));
+					medicationService.updateMedication(update, null));
+		
+		verify(medicationRepository).updateOwnedMedication(update);
+		verify(medicationRepository, never()).updateMedication(any());
+	}
+	
+	@Test
+	public void shouldUpdateMedicationAtExpectedVersion() {
+		
+		Medication update = new Medication(1L, "PAR", 8.6, 20, 1, 1, LocalDate.now(), 7, user);
+		given(medicationRepository.updateOwnedMedicationIfVersion(update, 3L)).willReturn(1);
+		
+		MedicationView updatedMed = medicationService.updateMedication(update, 3L);
+		
+		assertEquals("PAR", updatedMed.name());
+		assertEquals(4L, updatedMed.version());
+		
+		// The owner is named by the update, so nothing but the update reached the database.
+		verify(medicationRepository, never()).findViewByMedId(any());
+		verify(medicationCaches).evict(1L, 2L);
+	}
+	
+	@Test
+	public void shouldMoveMedicationToAnotherUser() {
+		
+		User newOwner = new User(5L, "other@email.com", "password", true, Collections.emptyList());
+		Medication update = new Medication(1L, "BUP", 3.4, 30, 2, 2, LocalDate.now(), 7, newOwner);
+		given(medicationRepository.updateOwnedMedicationIfVersion(update, 3L)).willReturn(0);
+		given(medicationRepository.findViewByMedId(1L))
+			.willReturn(Optional.of(new MedicationView(1L, "BUP", 3.4, 30, 2, 2, LocalDate.now(), 7, null, 2L, 30, 3L)));
+		given(medicationRepository.updateMedicationIfVersion(update, 3L)).willReturn(1);
+		
+		MedicationView moved = medicationService.updateMedication(update, 3L);
+		
+		assertEquals(5L, moved.userId());
+		assertEquals(4L, moved.version());
+		
+		verify(medicationCaches).evictUserMedications(2L);
+		verify(medicationCaches).evict(1L, 5L);
+	}
+	
+	@Test
+	public void shouldFailUpdateAtStaleVersion() {
+		
+		Medication update = new Medication(1L, "PAR", 8.6, 20, 1, 1, LocalDate.now(), 7, user);
+		given(medicationRepository.updateOwnedMedicationIfVersion(update, 3L)).willReturn(0);
+		given(medicationRepository.findViewByMedId(1L))
+			.willReturn(Optional.of(new MedicationView(1L, "BUP", 3.4, 30, 2, 2, LocalDate.now(), 7, null, 2L, 30, 5L)));
+		
+		MedicationVersionConflictException ex = assertThrows(MedicationVersionConflictException.class, () ->
+					medicationService.updateMedication(update, 3L));
+		
+		assertEquals(5L, ex.getCurrentVersion());
+	}
+	
+	@Test
+	public void shouldFailVersionedUpdateOfNonExistentMedication() {
+		
+		Medication update = new Medication(1L, "PAR", 8.6, 20, 1, 1, LocalDate.now(), 7, user);
+		given(medicationRepository.updateOwnedMedicationIfVersion(update, 3L)).willReturn(0);
+		given(medicationRepository.findViewByMedId(1L)).willReturn(Optional.empty());
+		
+		assertThrows(MedicationNotFoundException.class, () ->
+					medicationService.updateMedication(update, 3L));
+	}
+	
+	@Test
+	public void shouldPatchMedication() {
+		
+		given(medicationRepository.findById(1L)).willReturn(Optional.of(medication));
+		
+		MedicationView patched = medicationService.patchMedication(1L,
+				new MedicationPatch(null, null, 20, null, null, null, null), null);
+		
+		assertEquals(20, patched.quantity());
+		assertEquals("BUP", patched.name());
+		assertEquals(20, medication.getQuantity());
+		
+		verify(medicationRepository).flush();
+		verify(medicationCaches).evict(1L, 2L);
+	}
+	
+	@Test
+	public void shouldFailPatchAtStaleVersion() {
 		
-		verify(medicationRepository).findById(2L);
+		given(medicationRepository.findById(1L)).willReturn(Optional.of(medication));
+		
+		assertThrows(MedicationVersionConflictException.class, () ->
+				medicationService.patchMedication(1L, new MedicationPatch(null, null, 20, null, null, null, null), 3L));
+		
+		assertEquals(30, medication.getQuantity());
+	}
+	
+	@Test
+	public void shouldFailPatchNonExistentMedication() {
+		
+		given(medicationRepository.findById(1L)).willReturn(Optional.empty());
+		
+		assertThrows(MedicationNotFoundException.class, () ->
+				medicationService.patchMedication(1L, new MedicationPatch("PAR", null, null, null, null, null, null), null));
 	}
 	
 	@Test
 	public void shouldDeleteUserMedications() {
 		
+		given(medicationRepository.findAllViewsByUserId(2L)).willReturn(Optional.of(List.of(MedicationView.from(medication))));
+		
 		medicationService.deleteUserMedications(user.getUserId());
 		
 		verify(medicationRepository).deleteAllByUserId(user.getUserId());
+		verify(medicationCaches).evict(1L, 2L);
+		verify(medicationCaches).evictUserMedications(2L);
+	}
+	
+	@Test
+	public void shouldStreamUserMedications() {
+		
+		MedicationView first = MedicationView.from(medication);
+		MedicationView second = MedicationView.from(new Medication(3L, "PAR", 8.6, 20, 1, 1, LocalDate.now(), 7, user));
+		given(medicationRepository.streamAllViewsByUserId(2L)).willReturn(Stream.of(first, second));
+		
+		List<MedicationView> streamed = new ArrayList<>();
+		medicationService.streamUserMedications(2L, streamed::add);
+		
+		assertEquals(List.of(first, second), streamed);
+	}
+	
+	@Test
+	public void shouldReturnCursorOnlyWhenThereIsANextPage() {
+		
+		MedicationView first = MedicationView.from(medication);
+		MedicationView second = MedicationView.from(new Medication(3L, "PAR", 8.6, 20, 1, 1, LocalDate.now(), 7, user));
+		
+		given(medicationRepository.findFirstPageOrderByName(eq(2L), any())).willReturn(List.of(first, second));
+		
+		MedicationPage fullPage = medicationService.getUserMedicationPage(2L, MedicationSort.NAME, 1, null);
+		
+		assertEquals(List.of(first), fullPage.medications());
+		assertNotNull(fullPage.nextCursor());
+		
+		given(medicationRepository.findPageOrderByNameAfter(eq(2L), eq("BUP"), eq(1L), any())).willReturn(List.of(second));
+		
+		MedicationPage lastPage = medicationService.getUserMedicationPage(2L, MedicationSort.NAME, 1, fullPage.nextCursor());
+		
+		assertEquals(List.of(second), lastPage.medications());
+		assertNull(lastPage.nextCursor());
+	}
+	
+	@Test
+	public void shouldFailPageWithInvalidSize() {
+		
+		assertThrows(InvalidPageRequestException.class, () ->
+					medicationService.getUserMedicationPage(2L, MedicationSort.NAME, 0, null));
+		
+		assertThrows(InvalidPageRequestException.class, () ->
+					medicationService.getUserMedicationPage(2L, MedicationSort.NAME, 101, null));
+	}
+	
+	@Test
+	public void shouldFailPageWithInvalidCursor() {
+		
+		assertThrows(InvalidPageRequestException.class, () ->
+					medicationService.getUserMedicationPage(2L, MedicationSort.NAME, 10, "not-a-cursor"));
+	}
+	
+	@Test
+	public void shouldFailPageWithCursorFromAnotherSort() {
+		
+		given(medicationRepository.findFirstPageOrderByName(eq(2L), any()))
+			.willReturn(List.of(MedicationView.from(medication), MedicationView.from(medication)));
+		
+		String cursor = medicationService.getUserMedicationPage(2L, MedicationSort.NAME, 1, null).nextCursor();
+		
+		assertThrows(InvalidPageRequestException.class, () ->
+					medicationService.getUserMedicationPage(2L, MedicationSort.REMINDER_DATE, 1, cursor));
+	}
+	
+	@Test
+	public void shouldFailUnsupportedSort() {
+		
+		assertThrows(InvalidPageRequestException.class, () ->
+					MedicationSort.fromParameter("quantity"));
+		assertEquals(MedicationSort.REMINDER_DATE, MedicationSort.fromParameter("reminderDate"));
 	}
 }
@@ -1,5 +1,6 @@
 package prescription.tracker.test.medication;
 import prescription.tracker.medication.Medication;
+import prescription.tracker.medication.MedicationPatch;
 import prescription.tracker.user.User;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -174,4 +175,60 @@ public class MedicationTest {
 	     
 	     assertEquals(LocalDate.now(FIXED_CLOCK).plusDays(8), testMedication.getReminderDate());
 	}
+	
+	@Test
+	public void shouldApplyPatchOnlyToPresentValues() {
+		Medication med = new Medication(1L, "name", 2.0, 30, 4, 1, LocalDate.now(), 5, null);
+		
+		med.applyPatch(new MedicationPatch(null, null, 20, null, null, null, null));
+		
+		assertEquals("name", med.getName());
+		assertEquals(2.0, med.getDosage());
+		assertEquals(20, med.getQuantity());
+		assertEquals(4, med.getRefills());
+		assertEquals(LocalDate.now().plusDays(15), med.getReminderDate());
+	}
+	
+	@Test
+	public void shouldComputeReminderDateFromPatchedValuesTogether() {
+		Medication med = new Medication(1L, "name", 2.0, 30, 4, 1, LocalDate.now(), 20, null);
+		
+		// Applied one at a time, the smaller quantity would not cover the old reminder duration.
+		med.applyPatch(new MedicationPatch(null, null, 10, null, null, null, 5));
+		
+		assertEquals(10, med.getQuantity());
+		assertEquals(5, med.getReminderDays());
+		assertEquals(LocalDate.now().plusDays(5), med.getReminderDate());
+	}
+	
+	@Test
+	public void shouldFailApplyingInvalidPatch() {
+		Medication med = new Medication(1L, "name", 2.0, 30, 4, 1, LocalDate.now(), 5, null);
+		
+		assertThrows(IllegalArgumentException.class, () ->
+				med.applyPatch(new MedicationPatch(null, null, -1, null, null, null, null)));
+		assertThrows(IllegalStateException.class, () ->
+				med.applyPatch(new MedicationPatch(null, null, 3, null, null, null, null)));
+	}
+	
+	@Test
+	public void shouldCompareMedicationsById() {
+		Medication med = new Medication(1L, "name", 2.0, 30, 4, 1, LocalDate.now(), 5, null);
+		Medication sameId = new Medication(1L, "other", 1.0, 60, 0, 2, LocalDate.now(), 5, null);
+		Medication otherId = new Medication(2L, "name", 2.0, 30, 4, 1, LocalDate.now(), 5, null);
+		
+		assertEquals(med, sameId);
+		assertEquals(med.hashCode(), sameId.hashCode());
+		assertNotEquals(med, otherId);
+	}
+	
+	@Test
+	public void shouldOnlyEqualItselfBeforeSaved() {
+		Medication med = new Medication(null, "name", 2.0, 30, 4, 1, LocalDate.now(), 5, null);
+		Medication copy = new Medication(null, "name", 2.0, 30, 4, 1, LocalDate.now(), 5, null);
+		
+		assertEquals(med, med);
+		assertNotEquals(med, copy);
+	}
+
 }
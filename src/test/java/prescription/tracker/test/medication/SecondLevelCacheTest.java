@@ -0,0 +1,141 @@
+package prescription.tracker.test.medication;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+import prescription.tracker.medication.Medication;
+import prescription.tracker.medication.MedicationRepository;
+import prescription.tracker.user.User;
+import prescription.tracker.user.UserRepository;
+
+/**
+ * Every lookup runs in its own committed transaction, so only the second-level cache can
+ * spare the database. Users are cached there; medications are not, since the bulk updates of
+ * the medication table would evict them on every write.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SecondLevelCacheTest {
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private MedicationRepository medicationRepository;
+
+	private TransactionTemplate transactionTemplate;
+	private Statistics statistics;
+	private long userId;
+	private Long medId;
+
+	@BeforeEach
+	public void setUp() {
+
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		User user = new User();
+		user.setEmail("cache@email.com");
+		user.setPassword("password");
+		user.setEnabled(true);
+		user.addMedication(new Medication(null, "BUP", 3.4, 30, 2, 2, LocalDate.now(), 7, null));
+		user.addMedication(new Medication(null, "PAR", 8.6, 20, 1, 1, LocalDate.now(), 7, null));
+
+		User saved = transactionTemplate.execute(status -> userRepository.save(user));
+
+		userId = saved.getUserId();
+		medId = saved.getMedications().get(0).getMedId();
+
+		evictAll();
+	}
+
+	@AfterEach
+	public void tearDown() {
+
+		transactionTemplate.executeWithoutResult(status -> userRepository.deleteById(userId));
+		evictAll();
+	}
+
+	@Test
+	public void shouldServeRepeatedUserLookupsWithoutSql() {
+
+		lookUpUser();
+
+		statistics.clear();
+
+		lookUpUser();
+		lookUpUser();
+
+		assertEquals(0, statistics.getPrepareStatementCount());
+		assertEquals(0, statistics.getSecondLevelCacheMissCount());
+		assertEquals(2, statistics.getSecondLevelCacheHitCount());
+	}
+
+	@Test
+	public void shouldKeepCachedUserOnBulkMedicationUpdate() {
+
+		lookUpUser();
+
+		transactionTemplate.executeWithoutResult(status -> medicationRepository.adjustOnHand(medId, -1));
+
+		statistics.clear();
+
+		lookUpUser();
+
+		assertEquals(0, statistics.getPrepareStatementCount());
+		assertEquals(1, statistics.getSecondLevelCacheHitCount());
+	}
+
+	@Test
+	public void shouldNotCacheMedications() {
+
+		lookUpMedications();
+
+		statistics.clear();
+
+		lookUpMedications();
+
+		assertTrue(statistics.getPrepareStatementCount() > 0);
+		assertEquals(0, statistics.getSecondLevelCacheHitCount());
+	}
+
+	private void lookUpUser() {
+
+		transactionTemplate.executeWithoutResult(status -> 
+			assertEquals("cache@email.com", userRepository.findById(userId).orElseThrow().getEmail())
+		);
+	}
+
+	private void lookUpMedications() {
+
+		transactionTemplate.executeWithoutResult(status -> {
+			assertEquals("BUP", medicationRepository.findById(medId).orElseThrow().getName());
+			assertEquals(2, medicationRepository.findAllByUserId(userId).orElseThrow().size());
+		});
+	}
+
+	private void evictAll() {
+		entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+	}
+
+}
@@ -0,0 +1,86 @@
+package prescription.tracker.test.registration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import prescription.tracker.configuration.CacheConfiguration;
+import prescription.tracker.exception.UserNotVerifiedException;
+import prescription.tracker.registration.RegistrationService;
+import prescription.tracker.user.User;
+import prescription.tracker.user.UserRepository;
+import prescription.tracker.user.UserService;
+import prescription.tracker.user.UserView;
+
+/**
+ * Runs against the real lookup caches, so a confirmation that leaves a stale user view behind
+ * fails here.
+ */
+@SpringBootTest
+public class RegistrationCacheTest {
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private RegistrationService registrationService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	private Cache users;
+	private long userId;
+
+	@BeforeEach
+	public void setUp() {
+
+		users = cacheManager.getCache(CacheConfiguration.USERS);
+
+		User user = new User();
+		user.setEmail("confirm@email.com");
+		user.setPassword("password");
+		user.setConfirmationToken("token");
+		user.setConfirmationTokenExpiration(LocalDateTime.now().plusHours(1));
+
+		userId = userRepository.save(user).getUserId();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		userRepository.deleteById(userId);
+		users.clear();
+	}
+
+	@Test
+	public void shouldServeConfirmedUser() {
+
+		assertThrows(UserNotVerifiedException.class, () -> userService.getUser(userId));
+
+		registrationService.confirm("token");
+
+		assertTrue(userService.getUser(userId).enabled());
+	}
+
+	@Test
+	public void shouldEvictCachedUserOnConfirmation() {
+
+		users.put(userId, new UserView(userId, "confirm@email.com", false));
+
+		registrationService.confirm("token");
+
+		assertNull(users.get(userId));
+		assertTrue(userService.getUser(userId).enabled());
+	}
+
+}
@@ -0,0 +1,128 @@
+package prescription.tracker.test.registration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import prescription.tracker.configuration.CacheConfiguration;
+import prescription.tracker.medication.Medication;
+import prescription.tracker.medication.MedicationCaches;
+import prescription.tracker.medication.MedicationRepository;
+import prescription.tracker.registration.RegistrationPurgeScheduler;
+import prescription.tracker.registration.RegistrationRepository;
+import prescription.tracker.user.User;
+import prescription.tracker.user.UserCaches;
+import prescription.tracker.user.UserView;
+
+@DataJpaTest
+public class RegistrationPurgeSchedulerTest {
+
+	private static final LocalDateTime NOW = LocalDateTime.now();
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private RegistrationRepository registrationRepository;
+
+	@Autowired
+	private MedicationRepository medicationRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private CacheManager cacheManager = new ConcurrentMapCacheManager();
+
+	private RegistrationPurgeScheduler purgeScheduler;
+
+	@BeforeEach
+	public void setUp() {
+		purgeScheduler = new RegistrationPurgeScheduler(registrationRepository, new TransactionTemplate(transactionManager),
+				new MedicationCaches(cacheManager), new UserCaches(cacheManager), 2, Duration.ZERO);
+	}
+
+	@Test
+	public void shouldPurgeExpiredUnconfirmedAccountsInBatches() {
+
+		for(int i = 0; i < 5; i++) {
+			persistUser("expired" + i + "@email.com", false, NOW.minusHours(1));
+		}
+
+		User withMedication = persistUser("medication@email.com", false, NOW.minusDays(1));
+		withMedication.addMedication(new Medication(null, "BUP", 3.4, 30, 2, 2, LocalDate.now(), 7, null));
+		entityManager.persistAndFlush(withMedication);
+
+		persistUser("pending@email.com", false, NOW.plusHours(1));
+		persistUser("confirmed@email.com", true, null);
+		entityManager.clear();
+
+		assertEquals(6, purgeScheduler.purge(NOW));
+
+		assertEquals(2, registrationRepository.count());
+		assertTrue(registrationRepository.findUserByEmail("pending@email.com").isPresent());
+		assertTrue(registrationRepository.findUserByEmail("confirmed@email.com").isPresent());
+		assertEquals(0, medicationRepository.count());
+	}
+
+	@Test
+	public void shouldEvictPurgedUsersFromCache() {
+
+		User expired = persistUser("expired@email.com", false, NOW.minusHours(1));
+		User pending = persistUser("pending@email.com", false, NOW.plusHours(1));
+
+		Cache users = cacheManager.getCache(CacheConfiguration.USERS);
+		users.put(expired.getUserId(), new UserView(expired.getUserId(), "expired@email.com", false));
+		users.put(pending.getUserId(), new UserView(pending.getUserId(), "pending@email.com", false));
+
+		assertEquals(1, purgeScheduler.purge(NOW));
+
+		assertNull(users.get(expired.getUserId()));
+		assertNotNull(users.get(pending.getUserId()));
+	}
+
+	@Test
+	public void shouldPurgeNothingWhenNoRegistrationExpired() {
+
+		persistUser("pending@email.com", false, NOW.plusHours(1));
+
+		assertEquals(0, purgeScheduler.purge(NOW));
+		assertEquals(1, registrationRepository.count());
+	}
+
+	@Test
+	public void shouldNotConfirmExpiredToken() {
+
+		User user = persistUser("expired@email.com", false, NOW.minusMinutes(1));
+		user.setConfirmationToken("token");
+		entityManager.persistAndFlush(user);
+
+		assertTrue(registrationRepository
+				.findUserByConfirmationTokenAndConfirmationTokenExpirationAfter("token", NOW).isEmpty());
+		assertTrue(registrationRepository
+				.findUserByConfirmationTokenAndConfirmationTokenExpirationAfter("token", NOW.minusHours(1)).isPresent());
+	}
+
+	private User persistUser(String email, boolean enabled, LocalDateTime tokenExpiration) {
+
+		User user = new User();
+		user.setEmail(email);
+		user.setPassword("password");
+		user.setEnabled(enabled);
+		user.setConfirmationTokenExpiration(tokenExpiration);
+		return entityManager.persistAndFlush(user);
+	}
+
+}
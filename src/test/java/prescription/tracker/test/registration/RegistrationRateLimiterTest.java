@@ -0,0 +1,44 @@
+package prescription.tracker.test.registration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import prescription.tracker.exception.RateLimitExceededException;
+import prescription.tracker.registration.RegistrationRateLimiter;
+
+public class RegistrationRateLimiterTest {
+
+	@Test
+	public void shouldLimitRegistrationsPerAddress() {
+
+		RegistrationRateLimiter rateLimiter = new RegistrationRateLimiter(2, Duration.ofMinutes(10), 100,
+				Duration.ofMinutes(1), 100);
+
+		rateLimiter.acquire("10.0.0.1", "first@email.com");
+		rateLimiter.acquire("10.0.0.1", "second@other.com");
+
+		RateLimitExceededException ex = assertThrows(RateLimitExceededException.class,
+				() -> rateLimiter.acquire("10.0.0.1", "third@email.com"));
+		assertEquals(300, ex.getRetryAfterSeconds());
+
+		rateLimiter.acquire("10.0.0.2", "third@email.com");
+	}
+
+	@Test
+	public void shouldLimitRegistrationsPerEmailDomainIgnoringCase() {
+
+		RegistrationRateLimiter rateLimiter = new RegistrationRateLimiter(100, Duration.ofMinutes(10), 2,
+				Duration.ofMinutes(1), 100);
+
+		rateLimiter.acquire("10.0.0.1", "first@Spam.com");
+		rateLimiter.acquire("10.0.0.2", "second@spam.COM");
+
+		assertThrows(RateLimitExceededException.class, () -> rateLimiter.acquire("10.0.0.3", "third@spam.com"));
+
+		rateLimiter.acquire("10.0.0.4", "first@email.com");
+	}
+
+}
@@ -0,0 +1,68 @@
+package prescription.tracker.test.registration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import prescription.tracker.email.EmailService;
+import prescription.tracker.exception.DuplicateUserException;
+import prescription.tracker.registration.RegistrationRepository;
+import prescription.tracker.registration.RegistrationService;
+import prescription.tracker.user.User;
+import prescription.tracker.user.UserCaches;
+
+@ExtendWith(MockitoExtension.class)
+public class RegistrationServiceTest {
+
+	@Mock
+	private RegistrationRepository registrationRepository;
+
+	@Mock
+	private EmailService emailService;
+
+	@Mock
+	private UserCaches userCaches;
+
+	@InjectMocks
+	private RegistrationService registrationService;
+
+	@Test
+	public void shouldRejectTakenEmail() {
+
+		User existing = new User();
+		existing.setEmail("email@email.com");
+		existing.setEnabled(true);
+		given(registrationRepository.findUserByEmail("email@email.com")).willReturn(Optional.of(existing));
+
+		assertThrows(DuplicateUserException.class, () ->
+				registrationService.checkEmailAvailable("email@email.com"));
+	}
+
+	@Test
+	public void shouldAcceptEmailOfExpiredRegistration() {
+
+		User expired = new User();
+		expired.setEmail("email@email.com");
+		expired.setConfirmationTokenExpiration(LocalDateTime.now().minusHours(1));
+		given(registrationRepository.findUserByEmail("email@email.com")).willReturn(Optional.of(expired));
+
+		assertDoesNotThrow(() -> registrationService.checkEmailAvailable("email@email.com"));
+	}
+
+	@Test
+	public void shouldAcceptFreeEmail() {
+
+		given(registrationRepository.findUserByEmail("email@email.com")).willReturn(Optional.empty());
+
+		assertDoesNotThrow(() -> registrationService.checkEmailAvailable("email@email.com"));
+	}
+
+}
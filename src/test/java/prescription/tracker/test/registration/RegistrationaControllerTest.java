@@ -0,0 +1,56 @@
+package prescription.tracker.test.registration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import jakarta.servlet.http.HttpServletRequest;
+import prescription.tracker.exception.DuplicateUserException;
+import prescription.tracker.registration.RegistrationRateLimiter;
+import prescription.tracker.registration.RegistrationService;
+import prescription.tracker.registration.RegistrationaController;
+import prescription.tracker.user.PasswordHasher;
+import prescription.tracker.user.User;
+
+@ExtendWith(MockitoExtension.class)
+public class RegistrationaControllerTest {
+
+	@Mock
+	private RegistrationService registrationService;
+
+	@Mock
+	private PasswordHasher passwordHasher;
+
+	@Mock
+	private RegistrationRateLimiter rateLimiter;
+
+	@Mock
+	private HttpServletRequest request;
+
+	@InjectMocks
+	private RegistrationaController registrationController;
+
+	@Test
+	public void shouldRejectTakenEmailWithoutHashing() {
+
+		User user = new User();
+		user.setEmail("email@email.com");
+		user.setPassword("password");
+		willThrow(new DuplicateUserException("Email email@email.com already taken."))
+			.given(registrationService).checkEmailAvailable("email@email.com");
+
+		assertThrows(DuplicateUserException.class, () -> registrationController.register(user, request));
+
+		verify(passwordHasher, never()).encode(any());
+		verify(registrationService, never()).register(any(), any());
+	}
+
+}
@@ -0,0 +1,31 @@
+package prescription.tracker.test.support;
+
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+/**
+ * Email template setup shared by the renderer tests and benchmarks.
+ */
+public final class EmailTemplates {
+
+	private EmailTemplates() {
+	}
+
+	/**
+	 * Builds a template engine resolving the templates the same way Spring Boot does.
+	 */
+	public static TemplateEngine templateEngine() {
+
+		ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+		resolver.setPrefix("templates/");
+		resolver.setSuffix(".html");
+		resolver.setTemplateMode(TemplateMode.HTML);
+		resolver.setCacheable(true);
+
+		TemplateEngine engine = new TemplateEngine();
+		engine.setTemplateResolver(resolver);
+		return engine;
+	}
+
+}
@@ -0,0 +1,55 @@
+package prescription.tracker.test.user;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.concurrent.Executor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import prescription.tracker.configuration.MetricsConfiguration;
+import prescription.tracker.user.PasswordHasher;
+
+@ExtendWith(MockitoExtension.class)
+public class PasswordHasherTest {
+
+	@Mock
+	private PasswordEncoder passwordEncoder;
+
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private PasswordHasher passwordHasher;
+
+	@BeforeEach
+	public void setUp() {
+		Executor direct = Runnable::run;
+		passwordHasher = new PasswordHasher(passwordEncoder, direct, direct, meterRegistry);
+	}
+
+	@Test
+	public void shouldHashOnHashingExecutor() {
+
+		given(passwordEncoder.encode("password")).willReturn("hash");
+
+		assertEquals("hash", passwordHasher.encode("password").join());
+		assertEquals(1, meterRegistry.get(MetricsConfiguration.PASSWORD_HASH_TIMER).timer().count());
+	}
+
+	@Test
+	public void shouldNotHashMissingPassword() {
+
+		assertNull(passwordHasher.encodeIfPresent(null).join());
+
+		verifyNoInteractions(passwordEncoder);
+		assertEquals(0, meterRegistry.get(MetricsConfiguration.PASSWORD_HASH_TIMER).timer().count());
+	}
+
+}
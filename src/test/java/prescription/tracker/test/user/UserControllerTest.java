@@ -1,13 +1,19 @@
 package prescription.tracker.test.user;
 
 import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,13 +21,16 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import prescription.tracker.exception.UserNotFoundException;
+import prescription.tracker.user.PasswordHasher;
 import prescription.tracker.user.User;
 import prescription.tracker.user.UserController;
 import prescription.tracker.user.UserService;
+import prescription.tracker.user.UserView;
 
 @WebMvcTest(UserController.class)
 public class UserControllerTest {
@@ -32,11 +41,14 @@ public class UserControllerTest {
 	@MockBean
 	private UserService userService;
 	
+	@MockBean
+	private PasswordHasher passwordHasher;
+	
 	
 	@Test
 	public void shouldGetUser() throws Exception{
 		
-		User user = new User(2L, "email@email.com", "password", true, Collections.emptyList());
+		UserView user = new UserView(2L, "email@email.com", true);
 		
 		given(userService.getUser(2L))
 			.willReturn(user);
@@ -44,7 +56,9 @@ public class UserControllerTest {
 		mockMvc.perform(get("/api/user/{userId}", 2L))
 			.andExpect(status().isOk())
 			.andExpect(content().contentType(MediaType.APPLICATION_JSON))
-			.andExpect(content().json(new ObjectMapper().writeValueAsString(user)));
+			.andExpect(content().json(new ObjectMapper().writeValueAsString(user)))
+			.andExpect(jsonPath("$.password").doesNotExist())
+			.andExpect(jsonPath("$.medications").doesNotExist());
 			
 	}
 	
@@ -69,7 +83,7 @@ public class UserControllerTest {
 		mockMvc.perform(delete("/api/user/remove/{userId}", 2L))
 			.andExpect(status().isOk())
 			.andExpect(content().contentType(MediaType.APPLICATION_JSON))
-			.andExpect(content().json(new ObjectMapper().writeValueAsString(user)));
+			.andExpect(content().json(new ObjectMapper().writeValueAsString(UserView.from(user))));
 		
 		
 
@@ -90,17 +104,33 @@ public class UserControllerTest {
 	@Test
 	public void shouldUpdateUser() throws Exception {
 		User user = new User(2L, "email@email.com", "password", true, Collections.emptyList());
-		given(userService.updateUser(user)).willReturn(user);
+		given(passwordHasher.encodeIfPresent("password")).willReturn(CompletableFuture.completedFuture("hash"));
+		given(userService.updateUser(user, "hash")).willReturn(user);
 		
-		mockMvc.perform(put("/api/user/update")
+		MvcResult result = mockMvc.perform(put("/api/user/update")
 				.contentType(MediaType.APPLICATION_JSON)
 				.content(new ObjectMapper().writeValueAsString(user)))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		
+		mockMvc.perform(asyncDispatch(result))
 			.andExpect(status().isOk())
 			.andExpect(content().contentType(MediaType.APPLICATION_JSON))
-			.andExpect(content().json(new ObjectMapper().writeValueAsString(user)));
+			.andExpect(content().json(new ObjectMapper().writeValueAsString(UserView.from(user))));
 		
 		
 	}
 	
+	@Test
+	public void shouldRejectUpdateWhenHashingPoolIsFull() throws Exception {
+		User user = new User(2L, "email@email.com", "password", true, Collections.emptyList());
+		given(passwordHasher.encodeIfPresent("password")).willThrow(new RejectedExecutionException());
+		
+		mockMvc.perform(put("/api/user/update")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(user)))
+			.andExpect(status().isServiceUnavailable())
+			.andExpect(header().string("Retry-After", "1"));
+	}
 
 }
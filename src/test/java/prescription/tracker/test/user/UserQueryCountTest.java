@@ -0,0 +1,153 @@
+package prescription.tracker.test.user;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+import prescription.tracker.configuration.StatementTracingFilter;
+import prescription.tracker.medication.Medication;
+import prescription.tracker.user.User;
+import prescription.tracker.user.UserRepository;
+
+/**
+ * Counts the SQL statements behind each read endpoint and fetch plan, starting from empty caches,
+ * both as reported to the client and as seen by Hibernate, so a change that brings back
+ * lazy-loading round trips fails here.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class UserQueryCountTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	private TransactionTemplate transactionTemplate;
+	private Statistics statistics;
+	private long userId;
+	private Long medId;
+
+	@BeforeEach
+	public void setUp() {
+
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		User user = new User();
+		user.setEmail("count@email.com");
+		user.setPassword("password");
+		user.setEnabled(true);
+
+		for(int i = 0; i < 5; i++) {
+			user.addMedication(new Medication(null, "MED" + i, 1.0, 30, 1, 1, LocalDate.now(), 7, null));
+		}
+
+		User saved = transactionTemplate.execute(status -> userRepository.save(user));
+
+		userId = saved.getUserId();
+		medId = saved.getMedications().get(0).getMedId();
+
+		clearCaches();
+	}
+
+	@AfterEach
+	public void tearDown() {
+
+		transactionTemplate.executeWithoutResult(status -> userRepository.deleteById(userId));
+		clearCaches();
+	}
+
+	@Test
+	public void shouldGetUserWithOneStatement() throws Exception {
+
+		mockMvc.perform(get("/api/user/" + userId))
+				.andExpect(status().isOk())
+				.andExpect(header().string(StatementTracingFilter.STATEMENTS_HEADER, "1"));
+		assertEquals(1, statistics.getPrepareStatementCount());
+
+		mockMvc.perform(get("/api/user/" + userId))
+				.andExpect(status().isOk())
+				.andExpect(header().string(StatementTracingFilter.STATEMENTS_HEADER, "0"));
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	public void shouldGetUserMedicationsWithOneStatement() throws Exception {
+
+		mockMvc.perform(get("/api/medication/get/" + userId))
+				.andExpect(status().isOk())
+				.andExpect(header().string(StatementTracingFilter.STATEMENTS_HEADER, "1"));
+		assertEquals(1, statistics.getPrepareStatementCount());
+
+		mockMvc.perform(get("/api/medication/get/" + userId))
+				.andExpect(status().isOk())
+				.andExpect(header().string(StatementTracingFilter.STATEMENTS_HEADER, "0"));
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	public void shouldGetMedicationWithOneStatement() throws Exception {
+
+		mockMvc.perform(get("/api/medication/" + medId))
+				.andExpect(status().isOk())
+				.andExpect(header().string(StatementTracingFilter.STATEMENTS_HEADER, "1"));
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	public void shouldFetchUserWithMedicationsInOneStatement() {
+
+		transactionTemplate.executeWithoutResult(status -> {
+			User user = userRepository.findWithMedicationsByUserId(userId).orElseThrow();
+
+			assertEquals(5, user.getMedications().size());
+			user.getMedications().forEach(medication -> assertSame(user, medication.getUser()));
+		});
+
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	public void shouldFetchUserOnlyWithoutMedications() {
+
+		transactionTemplate.executeWithoutResult(status -> userRepository.findById(userId).orElseThrow());
+
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	private void clearCaches() {
+
+		cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+		entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+		statistics.clear();
+	}
+
+}
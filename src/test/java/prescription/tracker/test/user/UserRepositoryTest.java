@@ -9,6 +9,7 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import static org.junit.jupiter.api.Assertions.*;
 import prescription.tracker.user.User;
 import prescription.tracker.user.UserRepository;
+import prescription.tracker.user.UserView;
 import org.hibernate.exception.ConstraintViolationException;
 
 
@@ -75,4 +76,50 @@ public class UserRepositoryTest {
 			assertThrows(ConstraintViolationException.class, () ->
 					entityManager.persistAndFlush(testUser2));
 		}
+		
+		@Test
+		public void shouldReturnViewWhenFindViewById() {
+			
+			User testUser = new User();
+			testUser.setEmail("email@gmail.com");
+			testUser.setPassword("passwordpassword");
+			testUser.setEnabled(true);
+			
+			entityManager.persistAndFlush(testUser);
+			entityManager.clear();
+			
+			Optional<UserView> user = userRepository.findViewById(testUser.getUserId());
+			
+			assertTrue(user.isPresent());
+			assertEquals(new UserView(testUser.getUserId(), "email@gmail.com", true), user.get());
+		}
+		
+		@Test
+		public void shouldFindUserByEmailIgnoringCase() {
+			
+			User testUser = new User();
+			testUser.setEmail("Email@Gmail.com");
+			
+			entityManager.persistAndFlush(testUser);
+			
+			Optional<User> user = userRepository.findUserByEmail("email@gmail.com");
+			
+			assertTrue(user.isPresent());
+			assertEquals("Email@Gmail.com", user.get().getEmail());
+		}
+		
+		@Test
+		public void shouldThrowExceptionSavingUserWithDuplicateEmailInOtherCase() {
+			
+			User testUser1 = new User();
+			testUser1.setEmail("email@gmail.com");
+			
+			User testUser2 = new User();
+			testUser2.setEmail("EMAIL@gmail.com");
+			
+			entityManager.persistAndFlush(testUser1);
+			
+			assertThrows(ConstraintViolationException.class, () ->
+					entityManager.persistAndFlush(testUser2));
+		}
 }
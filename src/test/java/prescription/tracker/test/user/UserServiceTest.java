@@ -12,10 +12,12 @@ import java.util.Collections;
 import java.util.Optional;
 import prescription.tracker.exception.UserNotFoundException;
 import prescription.tracker.exception.UserNotVerifiedException;
+import prescription.tracker.medication.MedicationCaches;
 import prescription.tracker.medication.MedicationService;
 import prescription.tracker.user.User;
 import prescription.tracker.user.UserRepository;
 import prescription.tracker.user.UserService;
+import prescription.tracker.user.UserView;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
@@ -31,6 +33,9 @@ public class UserServiceTest {
 	@Mock
 	private PasswordEncoder passwordEncoder;
 
+	@Mock
+	private MedicationCaches medicationCaches;
+
 	@InjectMocks
 	private UserService userService;
 
@@ -55,42 +60,42 @@ public class UserServiceTest {
 	public void shouldGetValidUser() {
 		
 		// Arrange
-		given(userRepository.findById(2L))
-		.willReturn(Optional.of(testUser));
+		given(userRepository.findViewById(2L))
+		.willReturn(Optional.of(UserView.from(testUser)));
 
 		// Act
-		User result = userService.getUser(2L);
+		UserView result = userService.getUser(2L);
 
 		// Assert
-		assertEquals(result, testUser);
+		assertEquals(UserView.from(testUser), result);
 
-		verify(userRepository).findById(2L);
+		verify(userRepository).findViewById(2L);
 
 	}
 
 	@Test
 	public void shouldThrowExceptionWhenUserNotFound() {
 		
-		given(userRepository.findById(1L)).willReturn(Optional.empty());
+		given(userRepository.findViewById(1L)).willReturn(Optional.empty());
 		
 		 assertThrows(UserNotFoundException.class, () ->
 					userService.getUser(1L));
 		 
-		 verify(userRepository).findById(1L);
+		 verify(userRepository).findViewById(1L);
 	}
 	
 	@Test
 	public void shouldThrowExceptionGetNotVerifiedUser() {
 		User user = new User(1L, "email@gmail.com", "password", false, Collections.emptyList());
 		
-		given(userRepository.findById(1L))
-				.willReturn(Optional.of(user));
+		given(userRepository.findViewById(1L))
+				.willReturn(Optional.of(UserView.from(user)));
 		
 		
 		assertThrows(UserNotVerifiedException.class, () ->
 				userService.getUser(1L));
 		
-		verify(userRepository).findById(1L);
+		verify(userRepository).findViewById(1L);
 
 	}
 	
@@ -115,19 +120,17 @@ public class UserServiceTest {
 		User update = new User(2L, "newEmail@gmail.com", "passwordpassword", true, Collections.emptyList());
 		String hashedPassword = "$2y$10$ASANMXXDgld7EkZrlePg..LVp6I/VqFI3KTkOESnb6YK4gQwqWv0C";
 		
-		given(userRepository.findById(2L)).willReturn(Optional.of(testUser));
-		given(passwordEncoder.matches("passwordpassword", hashedPassword))
-			.willReturn(true);
+		given(userRepository.findWithMedicationsByUserId(2L)).willReturn(Optional.of(testUser));
 		
-		User updatedUser = userService.updateUser(update);
+		User updatedUser = userService.updateUser(update, null);
 		
 		assertEquals("newEmail@gmail.com", updatedUser.getEmail());
 		assertEquals(hashedPassword, updatedUser.getPassword());
 		assertTrue(updatedUser.getMedications().size() == 0);
 		
-		verify(userRepository).findById(2L);
+		verify(userRepository).findWithMedicationsByUserId(2L);
 		verify(userRepository).save(any(User.class));
-		verify(passwordEncoder).matches("passwordpassword", hashedPassword);
+		verify(medicationCaches).evictUserMedications(2L);
 			
 	}
 	
@@ -136,23 +139,17 @@ public class UserServiceTest {
 		
 		User update = new User(2L, "email@gmail.com", "newPassword", 
 				true, Collections.emptyList());
-		String hashedPassword = "$2y$10$ASANMXXDgld7EkZrlePg..LVp6I/VqFI3KTkOESnb6YK4gQwqWv0C";
 		String hashedNewPassword = "$2a$10$vRpWhTnza9Sz0gseZBucYOh3XDweyTexUn3wIiAtCkjGyGwlzTNp6";
 		
-		given(userRepository.findById(2L)).willReturn(Optional.of(testUser));
-		given(passwordEncoder.matches("newPassword", hashedPassword)).willReturn(false);
-		given(passwordEncoder.encode("newPassword"))
-				.willReturn(hashedNewPassword);
+		given(userRepository.findWithMedicationsByUserId(2L)).willReturn(Optional.of(testUser));
 		
-		User updatedUser = userService.updateUser(update);
+		User updatedUser = userService.updateUser(update, hashedNewPassword);
 		
 		assertEquals("email@gmail.com", updatedUser.getEmail());
 		assertEquals(hashedNewPassword, updatedUser.getPassword());
 		
-		verify(userRepository).findById(2L);
+		verify(userRepository).findWithMedicationsByUserId(2L);
 		verify(userRepository).save(any(User.class));
-		verify(passwordEncoder).matches("newPassword", hashedPassword);
-		verify(passwordEncoder).encode("newPassword");
 		
 		
 	}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
 import prescription.tracker.exception.MedicationNotFoundException;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -156,5 +157,42 @@ public class UserTest {
 				testUser.removeMedication(med));
 	}
 	
+	@Test
+	public void shouldFailAddMedicationWithSameId() {
+		testUser.addMedication(new Medication(1L, "BUP", 3.4, 30, 2, 2, LocalDate.now(), 7, null));
+		
+		assertThrows(IllegalArgumentException.class, () ->
+				testUser.addMedication(new Medication(1L, "PAR", 8.6, 20, 1, 1, LocalDate.now(), 7, null)));
+	}
+	
+	@Test
+	public void shouldRemoveMedicationWithSameId() {
+		Medication stored = new Medication(1L, "BUP", 3.4, 30, 2, 2, LocalDate.now(), 7, null);
+		testUser.addMedication(stored);
+		
+		testUser.removeMedication(new Medication(1L, "BUP", 3.4, 30, 2, 2, LocalDate.now(), 7, null));
+		
+		assertTrue(testUser.getMedications().isEmpty());
+		assertNull(stored.getUser());
+	}
+	
+	@Test
+	public void shouldAddManyMedications() {
+		for(int i = 0; i < 10_000; i++) {
+			testUser.addMedication(new Medication());
+		}
+		
+		assertEquals(10_000, testUser.getMedications().size());
+	}
+	
+	@Test
+	public void shouldAddMedicationAgainAfterListIsReplaced() {
+		testUser.addMedication(testMedication);
+		testUser.setMedications(new ArrayList<>());
+		
+		testUser.addMedication(testMedication);
+		
+		assertEquals(1, testUser.getMedications().size());
+	}
 
 }
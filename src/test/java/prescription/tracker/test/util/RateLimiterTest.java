@@ -0,0 +1,82 @@
+package prescription.tracker.test.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import prescription.tracker.util.RateLimiter;
+
+public class RateLimiterTest {
+
+	private AtomicLong clock;
+	private RateLimiter rateLimiter;
+
+	@BeforeEach
+	public void setUp() {
+		clock = new AtomicLong(1_000);
+		rateLimiter = new RateLimiter(3, Duration.ofSeconds(3), 100, clock::get);
+	}
+
+	@Test
+	public void shouldAllowBurstUpToCapacity() {
+
+		assertEquals(0, rateLimiter.tryAcquire("key"));
+		assertEquals(0, rateLimiter.tryAcquire("key"));
+		assertEquals(0, rateLimiter.tryAcquire("key"));
+
+		assertEquals(TimeUnit.SECONDS.toNanos(1), rateLimiter.tryAcquire("key"));
+	}
+
+	@Test
+	public void shouldRefillOnePermitPerInterval() {
+
+		drain("key");
+
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(400));
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(600), rateLimiter.tryAcquire("key"));
+
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+		assertEquals(0, rateLimiter.tryAcquire("key"));
+		assertTrue(rateLimiter.tryAcquire("key") > 0);
+	}
+
+	@Test
+	public void shouldNotSaveUpPermitsBeyondCapacity() {
+
+		assertEquals(0, rateLimiter.tryAcquire("key"));
+
+		clock.addAndGet(TimeUnit.MINUTES.toNanos(1));
+
+		drain("key");
+	}
+
+	@Test
+	public void shouldCountKeysSeparately() {
+
+		drain("first");
+
+		assertEquals(0, rateLimiter.tryAcquire("second"));
+	}
+
+	@Test
+	public void shouldRejectEmptyRate() {
+
+		assertThrows(IllegalArgumentException.class, () -> new RateLimiter(0, Duration.ofSeconds(1), 100));
+		assertThrows(IllegalArgumentException.class, () -> new RateLimiter(1, Duration.ZERO, 100));
+	}
+
+	private void drain(String key) {
+
+		for(int i = 0; i < 3; i++) {
+			assertEquals(0, rateLimiter.tryAcquire(key));
+		}
+
+		assertTrue(rateLimiter.tryAcquire(key) > 0);
+	}
+
+}
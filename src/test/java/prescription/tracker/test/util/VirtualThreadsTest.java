@@ -0,0 +1,38 @@
+package prescription.tracker.test.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.ThreadFactory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.junit.jupiter.api.condition.JRE;
+
+import prescription.tracker.util.VirtualThreads;
+
+public class VirtualThreadsTest {
+
+	@Test
+	@EnabledIf("prescription.tracker.util.VirtualThreads#isSupported")
+	public void shouldCreateNamedVirtualThreads() throws Exception {
+
+		ThreadFactory factory = VirtualThreads.threadFactory("test-");
+
+		Thread first = factory.newThread(() -> {});
+		Thread second = factory.newThread(() -> {});
+
+		assertEquals("test-0", first.getName());
+		assertEquals("test-1", second.getName());
+		assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(first));
+	}
+
+	@Test
+	@EnabledForJreRange(max = JRE.JAVA_20)
+	public void shouldRejectVirtualThreadsBeforeJava21() {
+
+		assertFalse(VirtualThreads.isSupported());
+		assertThrows(IllegalStateException.class, () -> VirtualThreads.threadFactory("test-"));
+	}
+
+}